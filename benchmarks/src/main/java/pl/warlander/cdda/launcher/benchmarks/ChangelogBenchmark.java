@@ -0,0 +1,84 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.warlander.cdda.launcher.model.changelog.ChangelogManager;
+import pl.warlander.cdda.launcher.model.changelog.ExperimentalChangelogManager;
+import pl.warlander.cdda.launcher.model.changelog.JenkinsBuild;
+import pl.warlander.cdda.launcher.model.changelog.JenkinsChangelogParser;
+import pl.warlander.cdda.launcher.model.changelog.StableChangelogManager;
+import pl.warlander.cdda.launcher.model.github.GithubReleasesParser;
+
+// rendering only, parsing of the fetched payloads is covered by the parsing benchmarks
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChangelogBenchmark {
+    
+    // cold renders every release body again, warm serves them from the rendered HTML cache
+    @Param({"cold", "warm"})
+    public String renderCache;
+    
+    private File changelogDirectory;
+    private StableChangelogManager stableChangelog;
+    private ExperimentalChangelogManager experimentalChangelog;
+    
+    @Setup
+    public void setup() throws IOException {
+        changelogDirectory = Fixtures.createTemporaryDirectory("changelog");
+        
+        stableChangelog = (StableChangelogManager) ChangelogManager.createChangelogManager(false, null, changelogDirectory);
+        InputStreamReader releasesReader = new InputStreamReader(new ByteArrayInputStream(ReleasePayloads.load(30)), StandardCharsets.UTF_8);
+        stableChangelog.loadReleases(GithubReleasesParser.parseReleases(releasesReader));
+        
+        experimentalChangelog = (ExperimentalChangelogManager) ChangelogManager.createChangelogManager(true, null, changelogDirectory);
+        ArrayList<JenkinsBuild> builds = new ArrayList();
+        JenkinsChangelogParser.parseBuilds(new ByteArrayInputStream(JenkinsPayloads.load(500)), builds::add);
+        experimentalChangelog.loadBuilds(builds.toArray(new JenkinsBuild[builds.size()]));
+    }
+    
+    @Setup(Level.Invocation)
+    public void clearRenderCache() throws IOException {
+        if (renderCache.equals("cold")) {
+            FileUtils.cleanDirectory(changelogDirectory);
+        }
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(changelogDirectory);
+    }
+    
+    @Benchmark
+    public String stableParseChangelog() {
+        return stableChangelog.ParseChangelog();
+    }
+    
+    @Benchmark
+    public String experimentalParseChangelog() {
+        return experimentalChangelog.ParseChangelog();
+    }
+
+}
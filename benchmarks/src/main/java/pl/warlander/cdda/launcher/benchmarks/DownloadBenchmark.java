@@ -0,0 +1,79 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.warlander.cdda.launcher.model.download.SegmentedDownload;
+import pl.warlander.cdda.launcher.model.download.SegmentedDownloader;
+
+// mirrors limit bandwidth per connection, which is what segmented downloads are meant to work around
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DownloadBenchmark {
+    
+    @Param({"1", "4"})
+    public int connections;
+    
+    @Param({"50"})
+    public long latencyMillis;
+    
+    @Param({"2"})
+    public int megabytesPerSecond;
+    
+    @Param({"16"})
+    public int megabytes;
+    
+    private File rootDirectory;
+    private File targetFile;
+    private ThrottledHttpServer server;
+    private SegmentedDownloader downloader;
+    
+    @Setup
+    public void setup() throws IOException {
+        rootDirectory = Fixtures.createTemporaryDirectory("download");
+        targetFile = new File(rootDirectory, "cataclysmdda-0.E.zip");
+        byte[] content = new byte[megabytes * 1024 * 1024];
+        new Random(megabytes).nextBytes(content);
+        server = new ThrottledHttpServer(content, latencyMillis, megabytesPerSecond * 1024L * 1024L);
+        downloader = new SegmentedDownloader(connections);
+    }
+    
+    @Setup(Level.Iteration)
+    public void removeDownloadedFile() {
+        targetFile.delete();
+        new File(targetFile.getPath() + ".state").delete();
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        server.close();
+        FileUtils.deleteDirectory(rootDirectory);
+    }
+    
+    @Benchmark
+    public File download() throws IOException {
+        SegmentedDownload download = downloader.createDownload(server.getUrl(targetFile.getName()), targetFile, Fixtures.createDownloadListener(null));
+        downloader.start(download);
+        return download.awaitCompletion();
+    }
+
+}
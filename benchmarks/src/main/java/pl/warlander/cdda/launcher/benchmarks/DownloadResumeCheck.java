@@ -0,0 +1,140 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+import org.apache.commons.io.FileUtils;
+import pl.warlander.cdda.launcher.model.download.SegmentedDownload;
+import pl.warlander.cdda.launcher.model.download.SegmentedDownloader;
+
+// resume, If-Range and segment retries checked against the throttled local server, exits with 1 when any of them fails
+public class DownloadResumeCheck {
+    
+    private static final int CONTENT_SIZE = 8 * 1024 * 1024;
+    private static final long LATENCY_MILLIS = 20;
+    private static final long BYTES_PER_SECOND = 1024 * 1024;
+    
+    private interface Check {
+        
+        public abstract void run(File directory) throws Exception;
+    
+    }
+    
+    private DownloadResumeCheck() {
+    
+    }
+    
+    public static void main(String[] args) {
+        int failures = 0;
+        failures += run("resume after cancel", DownloadResumeCheck::checkResume);
+        failures += run("restart when file changes mid-download", DownloadResumeCheck::checkChangedFile);
+        failures += run("retry of dropped segments", DownloadResumeCheck::checkSegmentRetry);
+        System.exit(failures == 0 ? 0 : 1);
+    }
+    
+    private static int run(String name, Check check) {
+        File directory = null;
+        try {
+            directory = Fixtures.createTemporaryDirectory("download-check");
+            check.run(directory);
+            System.out.println("PASS " + name);
+            return 0;
+        } catch (Exception | AssertionError ex) {
+            System.out.println("FAIL " + name + ": " + ex);
+            return 1;
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+    
+    private static void checkResume(File directory) throws Exception {
+        byte[] content = createContent(1);
+        File targetFile = new File(directory, "resume.zip");
+        try (ThrottledHttpServer server = new ThrottledHttpServer(content, LATENCY_MILLIS, BYTES_PER_SECOND)) {
+            SegmentedDownloader downloader = new SegmentedDownloader(SegmentedDownloader.DEFAULT_CONNECTIONS);
+            expectFailure(startDownload(downloader, server, targetFile, CONTENT_SIZE / 2, SegmentedDownload::cancel));
+            check(new File(targetFile.getPath() + ".state").exists(), "cancelled download kept no state");
+            
+            server.resetCounters();
+            startDownload(downloader, server, targetFile, -1, null).awaitCompletion();
+            checkContent(targetFile, content);
+            check(server.getServedBytes() < CONTENT_SIZE, "resumed download fetched " + server.getServedBytes() + " bytes again");
+        }
+    }
+    
+    private static void checkChangedFile(File directory) throws Exception {
+        byte[] content = createContent(2);
+        byte[] changedContent = createContent(3);
+        File targetFile = new File(directory, "changed.zip");
+        try (ThrottledHttpServer server = new ThrottledHttpServer(content, LATENCY_MILLIS, BYTES_PER_SECOND)) {
+            SegmentedDownloader downloader = new SegmentedDownloader(SegmentedDownloader.DEFAULT_CONNECTIONS);
+            // reconnecting segment carries the old validator in If-Range and gets the whole new file instead of its range
+            expectFailure(startDownload(downloader, server, targetFile, CONTENT_SIZE / 3, (download) -> {
+                server.setContent(changedContent);
+                server.dropConnections(1);
+            }));
+            check(server.getIgnoredRanges() > 0, "no range request was sent with a stale If-Range validator");
+            check(!new File(targetFile.getPath() + ".state").exists(), "state of a changed file was kept");
+            
+            startDownload(downloader, server, targetFile, -1, null).awaitCompletion();
+            checkContent(targetFile, changedContent);
+        }
+    }
+    
+    private static void checkSegmentRetry(File directory) throws Exception {
+        byte[] content = createContent(4);
+        File targetFile = new File(directory, "retry.zip");
+        try (ThrottledHttpServer server = new ThrottledHttpServer(content, LATENCY_MILLIS, BYTES_PER_SECOND)) {
+            SegmentedDownloader downloader = new SegmentedDownloader(SegmentedDownloader.DEFAULT_CONNECTIONS);
+            int droppedConnections = 3;
+            startDownload(downloader, server, targetFile, CONTENT_SIZE / 4, (download) -> server.dropConnections(droppedConnections)).awaitCompletion();
+            checkContent(targetFile, content);
+            // probe, one request per segment and one more for every dropped connection
+            int expectedRequests = 1 + SegmentedDownloader.DEFAULT_CONNECTIONS + droppedConnections;
+            check(server.getRangeRequests() == expectedRequests, server.getRangeRequests() + " range requests instead of " + expectedRequests);
+        }
+    }
+    
+    private static SegmentedDownload startDownload(SegmentedDownloader downloader, ThrottledHttpServer server, File targetFile,
+            long triggerBytes, Consumer<SegmentedDownload> trigger) throws IOException {
+        SegmentedDownload[] download = new SegmentedDownload[1];
+        boolean[] triggered = new boolean[1];
+        download[0] = downloader.createDownload(server.getUrl(targetFile.getName()), targetFile, Fixtures.createDownloadListener((downloaded) -> {
+            if (trigger != null && !triggered[0] && downloaded >= triggerBytes) {
+                triggered[0] = true;
+                trigger.accept(download[0]);
+            }
+        }));
+        downloader.start(download[0]);
+        return download[0];
+    }
+    
+    private static void expectFailure(SegmentedDownload download) {
+        try {
+            download.awaitCompletion();
+        } catch (IOException ex) {
+            return;
+        }
+        throw new AssertionError("download completed instead of stopping");
+    }
+    
+    private static void checkContent(File targetFile, byte[] expectedContent) throws IOException {
+        check(Arrays.equals(Files.readAllBytes(targetFile.toPath()), expectedContent), "downloaded file differs from served content");
+    }
+    
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+    
+    private static byte[] createContent(long seed) {
+        byte[] content = new byte[CONTENT_SIZE];
+        new Random(seed).nextBytes(content);
+        return content;
+    }
+
+}
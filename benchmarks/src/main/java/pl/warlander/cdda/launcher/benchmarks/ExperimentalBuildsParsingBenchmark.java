@@ -0,0 +1,43 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.warlander.cdda.launcher.model.builds.BuildData;
+import pl.warlander.cdda.launcher.model.builds.ExperimentalBuildsManager;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExperimentalBuildsParsingBenchmark {
+    
+    private static final String LISTING_URL = "http://dev.narc.ro/cataclysm/jenkins-latest/Linux_x64/Tiles";
+    
+    @Param({"100", "1000"})
+    public int builds;
+    
+    private String listing;
+    
+    @Setup
+    public void setup() {
+        listing = Fixtures.createBuildListing(builds);
+    }
+    
+    @Benchmark
+    public BuildData[] parseListing() {
+        return ExperimentalBuildsManager.parseListing(listing, LISTING_URL, "Tiles");
+    }
+
+}
@@ -0,0 +1,76 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.warlander.cdda.launcher.model.builds.BuildData;
+import pl.warlander.cdda.launcher.model.directories.DirectoriesManager;
+
+// every iteration installs the same build from scratch, as a single shot
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ExtractionBenchmark {
+    
+    @Param({"zip", "tar.gz"})
+    public String format;
+    
+    @Param({"false", "true"})
+    public boolean useBuildStore;
+    
+    @Param({"30000"})
+    public int entries;
+    
+    private File rootDirectory;
+    private File archiveFile;
+    private DirectoriesManager directoriesManager;
+    private BuildData buildData;
+    private File installedVersion;
+    
+    @Setup
+    public void setup() throws IOException {
+        rootDirectory = Fixtures.createTemporaryDirectory("extraction");
+        archiveFile = Fixtures.createArchive(rootDirectory, format, entries);
+        directoriesManager = new DirectoriesManager(new File(rootDirectory, "CDDA CC"));
+        directoriesManager.initialize();
+        directoriesManager.getLauncherProperties().useBuildStore = useBuildStore;
+        buildData = new BuildData("0.E-" + entries, "Tiles", archiveFile.toURI().toString(), LocalDateTime.now());
+    }
+    
+    @Setup(Level.Iteration)
+    public void removeInstalledVersion() throws IOException {
+        if (installedVersion != null) {
+            FileUtils.deleteDirectory(installedVersion);
+        }
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(rootDirectory);
+    }
+    
+    @Benchmark
+    public File extractAndInstallVersion() {
+        installedVersion = directoriesManager.extractAndInstallVersion(buildData, archiveFile);
+        return installedVersion;
+    }
+
+}
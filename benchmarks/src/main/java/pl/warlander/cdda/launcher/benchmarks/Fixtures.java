@@ -0,0 +1,141 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import com.google.gson.Gson;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.function.LongConsumer;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import pl.warlander.cdda.launcher.model.directories.LauncherModInfo;
+import pl.warlander.cdda.launcher.model.download.DownloadListener;
+import pl.warlander.cdda.launcher.model.mods.ModType;
+
+public class Fixtures {
+    
+    private Fixtures() {
+    
+    }
+    
+    public static File createTemporaryDirectory(String name) throws IOException {
+        return Files.createTempDirectory("cdda-benchmark-" + name).toFile();
+    }
+    
+    // laid out like a game build: a top level folder with many small json and data files
+    public static File createArchive(File directory, String format, int entries) throws IOException {
+        File archiveFile = new File(directory, "cataclysmdda-0.E-" + entries + "." + format);
+        Random random = new Random(entries);
+        try (ArchiveOutputStream output = createArchiveOutput(archiveFile, format)) {
+            for (int i = 0; i < entries; i++) {
+                String path = "cataclysmdda-0.E/data/json/" + (i % 40) + "/entry-" + i + ".json";
+                byte[] data = createJsonData(random, 512 + random.nextInt(8192));
+                output.putArchiveEntry(createArchiveEntry(format, path, data.length));
+                output.write(data);
+                output.closeArchiveEntry();
+            }
+        }
+        return archiveFile;
+    }
+    
+    private static ArchiveOutputStream createArchiveOutput(File archiveFile, String format) throws IOException {
+        OutputStream output = new BufferedOutputStream(new FileOutputStream(archiveFile));
+        if (format.equals("zip")) {
+            return new ZipArchiveOutputStream(output);
+        }
+        TarArchiveOutputStream tarOutput = new TarArchiveOutputStream(new GzipCompressorOutputStream(output));
+        tarOutput.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        return tarOutput;
+    }
+    
+    private static ArchiveEntry createArchiveEntry(String format, String path, long size) {
+        if (format.equals("zip")) {
+            return new ZipArchiveEntry(path);
+        }
+        TarArchiveEntry entry = new TarArchiveEntry(path);
+        entry.setSize(size);
+        return entry;
+    }
+    
+    private static byte[] createJsonData(Random random, int size) {
+        StringBuilder json = new StringBuilder("[\n");
+        while (json.length() < size) {
+            json.append("  { \"type\": \"GENERIC\", \"id\": \"item_").append(random.nextInt(100000)).append("\", \"weight\": ")
+                    .append(random.nextInt(5000)).append(" },\n");
+        }
+        json.append("  {}\n]\n");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    public static File createModsTree(File gameRoot, int mods) throws IOException {
+        File modsDirectory = new File(gameRoot, "data/mods");
+        for (int i = 0; i < mods; i++) {
+            File modDirectory = new File(modsDirectory, "mod_" + i);
+            modDirectory.mkdirs();
+            String modInfo = "[\n  {\n    \"type\": \"MOD_INFO\",\n    \"id\": \"mod_" + i + "\",\n    \"name\": \"Mod " + i + "\",\n"
+                    + "    \"authors\": [ \"Someone\" ],\n    \"description\": \"Adds things number " + i + " to the game.\",\n"
+                    + "    \"category\": \"content\",\n    \"dependencies\": [ \"dda\" ]\n  }\n]\n";
+            Files.write(new File(modDirectory, "modinfo.json").toPath(), modInfo.getBytes(StandardCharsets.UTF_8));
+            // mods also carry their content, which a scan has to walk past
+            Files.write(new File(modDirectory, "items.json").toPath(), createJsonData(new Random(i), 4096));
+        }
+        return modsDirectory;
+    }
+    
+    public static void writeLauncherModsInfo(File modsFile, int mods) throws IOException {
+        LauncherModInfo[] modsInfo = new LauncherModInfo[mods];
+        ModType[] types = ModType.values();
+        for (int i = 0; i < mods; i++) {
+            modsInfo[i] = new LauncherModInfo("mod_" + i, types[i % types.length]);
+        }
+        Files.write(modsFile.toPath(), new Gson().toJson(modsInfo).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static DownloadListener createDownloadListener(LongConsumer progressListener) {
+        return new DownloadListener() {
+            public void onStart(String fileName, long size) {
+            
+            }
+            
+            public void onUpdate(long downloaded, long size, double bytesPerSecond) {
+                if (progressListener != null) {
+                    progressListener.accept(downloaded);
+                }
+            }
+            
+            public void onComplete() {
+            
+            }
+            
+            public void onCancel() {
+            
+            }
+            
+            public void onError(Exception ex) {
+            
+            }
+        };
+    }
+    
+    public static String createBuildListing(int builds) {
+        StringBuilder listing = new StringBuilder("<html><head><title>Index of /cataclysm/jenkins-latest/Linux_x64/Tiles</title></head><body><pre>");
+        listing.append("<a href=\"../\">../</a>\n");
+        for (int i = 0; i < builds; i++) {
+            String fileName = "cataclysmdda-0.E-" + (10000 + i) + ".tar.gz";
+            listing.append("<a href=\"").append(fileName).append("\">").append(fileName).append("</a>");
+            listing.append("    2020-0").append(1 + i % 9).append("-1").append(i % 10).append(" 1").append(i % 10).append(":00    25M\n");
+        }
+        listing.append("</pre></body></html>");
+        return listing.toString();
+    }
+
+}
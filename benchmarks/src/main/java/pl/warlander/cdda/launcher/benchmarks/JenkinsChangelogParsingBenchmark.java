@@ -0,0 +1,78 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.select.Elements;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.warlander.cdda.launcher.model.changelog.ExperimentalChangelogManager;
+import pl.warlander.cdda.launcher.model.changelog.JenkinsChangelogParser;
+import pl.warlander.cdda.launcher.utils.TimeUtils;
+
+// run with -prof gc to compare allocation as well
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JenkinsChangelogParsingBenchmark {
+    
+    @Param({"45", "500"})
+    public int builds;
+    
+    private byte[] payload;
+    
+    @Setup
+    public void setup() throws IOException {
+        payload = JenkinsPayloads.load(builds);
+    }
+    
+    @Benchmark
+    public String jsoupParse() {
+        // the previous implementation: full Jsoup DOM, then tag scans per build
+        Document changelogDocument = Jsoup.parse(new String(payload, StandardCharsets.UTF_8), "", Parser.xmlParser());
+        StringBuilder changelog = new StringBuilder();
+        Elements jenkinsBuilds = changelogDocument.getElementsByTag("build");
+        for (Element jenkinsBuild : jenkinsBuilds) {
+            String buildNumber = jenkinsBuild.getElementsByTag("number").html();
+            long buildTimestamp = Long.parseLong(jenkinsBuild.getElementsByTag("timestamp").html()) / 1000;
+            LocalDateTime time = LocalDateTime.ofEpochSecond(buildTimestamp, 0, ZoneOffset.UTC);
+            String timeToNowString = TimeUtils.timestampToNowString(time);
+            
+            changelog.append("<p><b>").append(buildNumber).append(" (").append(timeToNowString).append(" - ").append(time.toString().replace("T", " ")).append(")</b></p>");
+            
+            changelog.append("<ul>");
+            for (Element buildChangelogLine : jenkinsBuild.getElementsByTag("msg")) {
+                changelog.append("<li>").append(buildChangelogLine.html()).append("</li>");
+            }
+            changelog.append("</ul>");
+        }
+        return changelog.toString();
+    }
+    
+    @Benchmark
+    public String staxParse() throws IOException {
+        StringBuilder changelog = new StringBuilder();
+        JenkinsChangelogParser.parseBuilds(new ByteArrayInputStream(payload), (build) -> ExperimentalChangelogManager.appendBuild(changelog, build));
+        return changelog.toString();
+    }
+
+}
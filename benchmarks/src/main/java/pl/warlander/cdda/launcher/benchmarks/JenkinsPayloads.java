@@ -0,0 +1,49 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class JenkinsPayloads {
+    
+    // point at a recorded Cataclysm-Matrix api/xml?tree=builds[...] response to benchmark real data
+    public static final String PAYLOAD_PROPERTY = "jenkins.payload";
+    
+    private JenkinsPayloads() {
+    
+    }
+    
+    public static byte[] load(int builds) throws IOException {
+        String recordedPayload = System.getProperty(PAYLOAD_PROPERTY);
+        if (recordedPayload != null) {
+            return Files.readAllBytes(Paths.get(recordedPayload));
+        }
+        return generate(builds);
+    }
+    
+    // mirrors the shape of the Jenkins XML API response for the changelog tree query
+    public static byte[] generate(int builds) {
+        Random random = new Random(builds);
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        xml.append("<matrixProject _class=\"hudson.matrix.MatrixProject\">");
+        for (int i = 0; i < builds; i++) {
+            xml.append("<build _class=\"hudson.matrix.MatrixBuild\">");
+            xml.append("<number>").append(10000 + builds - i).append("</number>");
+            xml.append("<timestamp>").append(1580000000000L + (builds - i) * 3600000L).append("</timestamp>");
+            xml.append("<changeSet _class=\"hudson.plugins.git.GitChangeSetList\">");
+            int messages = random.nextInt(6);
+            for (int j = 0; j < messages; j++) {
+                xml.append("<item _class=\"hudson.plugins.git.GitChangeSet\"><msg>");
+                xml.append("Merge pull request #").append(random.nextInt(50000)).append(" from contributor/fix-").append(random.nextInt(1000));
+                xml.append(" &amp; update &lt;item&gt; definitions");
+                xml.append("</msg></item>");
+            }
+            xml.append("</changeSet></build>");
+        }
+        xml.append("</matrixProject>");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+}
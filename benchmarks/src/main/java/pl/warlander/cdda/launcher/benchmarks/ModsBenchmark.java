@@ -0,0 +1,67 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.warlander.cdda.launcher.model.directories.CddaDirectory;
+import pl.warlander.cdda.launcher.model.directories.DirectoriesManager;
+import pl.warlander.cdda.launcher.model.directories.GameModInfo;
+import pl.warlander.cdda.launcher.model.directories.LauncherModInfo;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModsBenchmark {
+    
+    @Param({"50", "500"})
+    public int mods;
+    
+    private File rootDirectory;
+    private CddaDirectory gameDirectory;
+    private DirectoriesManager directoriesManager;
+    
+    @Setup
+    public void setup() throws IOException {
+        rootDirectory = Fixtures.createTemporaryDirectory("mods");
+        File gameRoot = new File(rootDirectory, "game");
+        Fixtures.createModsTree(gameRoot, mods);
+        gameDirectory = new CddaDirectory(gameRoot);
+        
+        File launcherRoot = new File(rootDirectory, "CDDA CC");
+        directoriesManager = new DirectoriesManager(launcherRoot);
+        directoriesManager.initialize();
+        Fixtures.writeLauncherModsInfo(new File(launcherRoot, "mods.json"), mods);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(rootDirectory);
+    }
+    
+    @Benchmark
+    public GameModInfo[] findMods() {
+        return gameDirectory.findMods();
+    }
+    
+    @Benchmark
+    public LauncherModInfo[] loadLauncherModsInfo() {
+        return directoriesManager.loadLauncherModsInfo();
+    }
+
+}
@@ -0,0 +1,94 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class ReleasePayloads {
+    
+    // point at a recorded api.github.com/repos/CleverRaven/Cataclysm-DDA/releases response to benchmark real data
+    public static final String PAYLOAD_PROPERTY = "releases.payload";
+    
+    private static final String[] PLATFORMS = {"Win64", "Linux", "OSX"};
+    private static final String[] GRAPHICS = {"Tiles", "Curses"};
+    
+    private ReleasePayloads() {
+    
+    }
+    
+    public static byte[] load(int releases) throws IOException {
+        String recordedPayload = System.getProperty(PAYLOAD_PROPERTY);
+        if (recordedPayload != null) {
+            return Files.readAllBytes(Paths.get(recordedPayload));
+        }
+        return generate(releases);
+    }
+    
+    // mirrors the shape of the GitHub releases response, including the large markdown bodies
+    public static byte[] generate(int releases) throws IOException {
+        Random random = new Random(releases);
+        StringWriter output = new StringWriter();
+        try (JsonWriter json = new JsonWriter(output)) {
+            json.beginArray();
+            for (int i = 0; i < releases; i++) {
+                String tag = "0." + (char) ('E' - i % 5) + "-" + (releases - i);
+                json.beginObject();
+                json.name("url").value("https://api.github.com/repos/CleverRaven/Cataclysm-DDA/releases/" + (1000 + i));
+                json.name("id").value(1000 + i);
+                writeUser(json, "author");
+                json.name("tag_name").value(tag);
+                json.name("name").value("Cataclysm-DDA " + tag);
+                json.name("draft").value(false);
+                json.name("prerelease").value(false);
+                json.name("created_at").value("2020-0" + (1 + i % 9) + "-1" + i % 10 + "T12:00:00Z");
+                json.name("published_at").value("2020-0" + (1 + i % 9) + "-1" + i % 10 + "T12:30:00Z");
+                json.name("assets").beginArray();
+                for (String platform : PLATFORMS) {
+                    for (String graphics : GRAPHICS) {
+                        String assetName = "cdda-" + platform + "-" + graphics + "-" + tag + ".zip";
+                        json.beginObject();
+                        json.name("url").value("https://api.github.com/repos/CleverRaven/Cataclysm-DDA/releases/assets/" + random.nextInt());
+                        json.name("name").value(assetName);
+                        writeUser(json, "uploader");
+                        json.name("content_type").value("application/zip");
+                        json.name("state").value("uploaded");
+                        json.name("size").value(20_000_000 + random.nextInt(10_000_000));
+                        json.name("download_count").value(random.nextInt(100_000));
+                        json.name("browser_download_url").value("https://github.com/CleverRaven/Cataclysm-DDA/releases/download/" + tag + "/" + assetName);
+                        json.endObject();
+                    }
+                }
+                json.endArray();
+                json.name("body").value(generateBody(random));
+                json.endObject();
+            }
+            json.endArray();
+        }
+        return output.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static void writeUser(JsonWriter json, String name) throws IOException {
+        json.name(name).beginObject();
+        json.name("login").value("github-actions[bot]");
+        json.name("id").value(41898282);
+        json.name("avatar_url").value("https://avatars.githubusercontent.com/in/15368?v=4");
+        json.name("type").value("Bot");
+        json.name("site_admin").value(false);
+        json.endObject();
+    }
+    
+    private static String generateBody(Random random) {
+        StringBuilder body = new StringBuilder("## Highlights\r\n\r\n");
+        for (int line = 0; line < 200; line++) {
+            body.append("* ").append(line % 3 == 0 ? "**Balance:** " : "").append("Fixed issue #").append(random.nextInt(50000))
+                    .append(" with [vehicles](https://github.com/CleverRaven/Cataclysm-DDA/pull/").append(random.nextInt(50000))
+                    .append(") and `item` handling\r\n");
+        }
+        return body.toString();
+    }
+
+}
@@ -0,0 +1,85 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.warlander.cdda.launcher.model.builds.BuildData;
+import pl.warlander.cdda.launcher.model.builds.StableBuildsManager;
+import pl.warlander.cdda.launcher.model.github.GithubReleasesParser;
+
+// run with -prof gc to compare allocation per fetch as well
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StableBuildsParsingBenchmark {
+    
+    private static final String ASSET_LOOKUP = "Linux-Tiles";
+    private static final String GRAPHICS_INFIX = "Tiles";
+    
+    @Param({"30", "100"})
+    public int releases;
+    
+    private byte[] payload;
+    
+    @Setup
+    public void setup() throws IOException {
+        payload = ReleasePayloads.load(releases);
+    }
+    
+    @Benchmark
+    public BuildData[] treeParse() {
+        // the previous implementation: whole response as a String, then a full Gson tree
+        String buildsJsonString = new String(payload, StandardCharsets.UTF_8);
+        JsonArray buildsArray = new Gson().fromJson(buildsJsonString, JsonArray.class);
+        ArrayList<BuildData> builds = new ArrayList();
+        for (JsonElement build : buildsArray) {
+            JsonObject buildObject = (JsonObject) build;
+            String name = buildObject.get("tag_name").getAsString();
+            String timestampString = buildObject.get("published_at").getAsString();
+            String download = null;
+            for (JsonElement asset : buildObject.getAsJsonArray("assets")) {
+                JsonObject assetObject = (JsonObject) asset;
+                if (assetObject.get("name").getAsString().contains(ASSET_LOOKUP)) {
+                    download = assetObject.get("browser_download_url").getAsString();
+                    break;
+                }
+            }
+            if (download == null) {
+                continue;
+            }
+            LocalDateTime timestamp = LocalDateTime.parse(timestampString, DateTimeFormatter.ISO_DATE_TIME);
+            builds.add(new BuildData(name, GRAPHICS_INFIX, download, timestamp));
+        }
+        return builds.toArray(new BuildData[builds.size()]);
+    }
+    
+    @Benchmark
+    public BuildData[] streamingParse() throws IOException {
+        InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8);
+        return StableBuildsManager.createBuilds(GithubReleasesParser.parseReleases(reader), ASSET_LOOKUP, GRAPHICS_INFIX);
+    }
+
+}
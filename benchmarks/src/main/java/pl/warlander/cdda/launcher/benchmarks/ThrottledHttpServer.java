@@ -0,0 +1,162 @@
+package pl.warlander.cdda.launcher.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import pl.warlander.cdda.launcher.utils.HashUtils;
+
+// local stand-in for a build mirror: byte ranges with If-Range, latency per request, bandwidth per connection and dropped connections
+public class ThrottledHttpServer implements AutoCloseable {
+    
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d+)-(\\d*)");
+    
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long latencyMillis;
+    private final long bytesPerSecond;
+    
+    private volatile byte[] content;
+    private volatile String etag;
+    
+    private final AtomicInteger pendingDrops;
+    private final AtomicInteger rangeRequests;
+    private final AtomicInteger ignoredRanges;
+    private final AtomicLong servedBytes;
+    
+    public ThrottledHttpServer(byte[] content, long latencyMillis, long bytesPerSecond) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.bytesPerSecond = bytesPerSecond;
+        this.pendingDrops = new AtomicInteger();
+        this.rangeRequests = new AtomicInteger();
+        this.ignoredRanges = new AtomicInteger();
+        this.servedBytes = new AtomicLong();
+        setContent(content);
+        
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+    }
+    
+    public URL getUrl(String fileName) throws MalformedURLException {
+        InetSocketAddress address = server.getAddress();
+        return new URL("http", address.getHostString(), address.getPort(), "/" + fileName);
+    }
+    
+    // responses already in flight keep sending what they started with, like a mirror replacing a file
+    public void setContent(byte[] content) {
+        this.content = content;
+        this.etag = "\"" + HashUtils.sha256(content, content.length) + "\"";
+    }
+    
+    // next connections to send a chunk past their first one are closed before the end of their response
+    public void dropConnections(int count) {
+        pendingDrops.addAndGet(count);
+    }
+    
+    public int getRangeRequests() {
+        return rangeRequests.get();
+    }
+    
+    public int getIgnoredRanges() {
+        return ignoredRanges.get();
+    }
+    
+    public long getServedBytes() {
+        return servedBytes.get();
+    }
+    
+    public void resetCounters() {
+        pendingDrops.set(0);
+        rangeRequests.set(0);
+        ignoredRanges.set(0);
+        servedBytes.set(0);
+    }
+    
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            sleep(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            byte[] data = content;
+            String currentEtag = etag;
+            exchange.getResponseHeaders().set("ETag", currentEtag);
+            exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+            
+            int status = 200;
+            long start = 0;
+            long end = data.length - 1;
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null) {
+                rangeRequests.incrementAndGet();
+                String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+                Matcher matcher = RANGE_PATTERN.matcher(range);
+                if (ifRange != null && !ifRange.equals(currentEtag)) {
+                    // file changed since the client's validator, so the whole new file is sent instead of the range
+                    ignoredRanges.incrementAndGet();
+                } else if (matcher.matches()) {
+                    start = Long.parseLong(matcher.group(1));
+                    end = matcher.group(2).isEmpty() ? end : Math.min(end, Long.parseLong(matcher.group(2)));
+                    status = 206;
+                    exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + data.length);
+                }
+            }
+            
+            long length = end - start + 1;
+            exchange.sendResponseHeaders(status, length > 0 ? length : -1);
+            sendBody(exchange.getResponseBody(), data, start, length);
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private void sendBody(OutputStream output, byte[] data, long start, long length) throws IOException {
+        long startTime = System.nanoTime();
+        long sent = 0;
+        while (sent < length) {
+            if (sent > 0 && pendingDrops.getAndUpdate((drops) -> Math.max(drops - 1, 0)) > 0) {
+                output.flush();
+                // server closes the connection on an exception, the client sees it end early
+                throw new IOException("Connection dropped after " + sent + " bytes");
+            }
+            
+            int chunk = (int) Math.min(CHUNK_SIZE, length - sent);
+            output.write(data, (int) (start + sent), chunk);
+            sent += chunk;
+            servedBytes.addAndGet(chunk);
+            if (bytesPerSecond > 0) {
+                sleep(sent * 1_000_000_000L / bytesPerSecond - (System.nanoTime() - startTime));
+            }
+        }
+    }
+    
+    private void sleep(long nanos) throws IOException {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", ex);
+        }
+    }
+
+}
@@ -14,12 +14,12 @@ module pl.warlander.cdda.launcher {
     requires commons.net;
     requires org.apache.commons.lang3;
     requires jsoup;
-    requires jddl;
     requires gson;
     requires org.commonmark;
     requires org.slf4j.jul;
     requires org.slf4j;
     requires org.apache.commons.compress;
+    requires java.xml;
     
     exports pl.warlander.cdda.launcher;
 }
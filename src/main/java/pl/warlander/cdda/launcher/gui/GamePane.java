@@ -1,14 +1,22 @@
 package pl.warlander.cdda.launcher.gui;
 
+import com.google.gson.Gson;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
-import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 import javafx.application.Platform;
+import javafx.concurrent.Worker;
 import javafx.event.ActionEvent;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -16,10 +24,12 @@ import javafx.scene.Node;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.Separator;
 import javafx.scene.control.TextField;
 import javafx.scene.control.ToggleGroup;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
@@ -31,17 +41,28 @@ import javafx.scene.text.FontWeight;
 import javafx.scene.web.WebView;
 import org.apache.commons.io.FileUtils;
 import org.controlsfx.tools.Borders;
-import org.kamranzafar.jddl.DownloadListener;
-import org.kamranzafar.jddl.DownloadTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.warlander.cdda.launcher.model.builds.BuildData;
-import pl.warlander.cdda.launcher.model.builds.BuildsManager;
+import pl.warlander.cdda.launcher.model.builds.BuildChannels;
 import pl.warlander.cdda.launcher.model.changelog.ChangelogManager;
+import pl.warlander.cdda.launcher.model.copy.CopyProgressListener;
+import pl.warlander.cdda.launcher.model.copy.DirectoryCopier;
 import pl.warlander.cdda.launcher.model.directories.CddaDirectory;
+import pl.warlander.cdda.launcher.model.directories.DirectoryMigrator;
+import pl.warlander.cdda.launcher.model.directories.GameDirectories;
 import pl.warlander.cdda.launcher.model.directories.GameModInfo;
 import pl.warlander.cdda.launcher.model.directories.LauncherModInfo;
+import pl.warlander.cdda.launcher.model.directories.MigrationMode;
+import pl.warlander.cdda.launcher.model.download.DownloadListener;
+import pl.warlander.cdda.launcher.model.download.SegmentedDownload;
+import pl.warlander.cdda.launcher.model.install.InstallManifest;
+import pl.warlander.cdda.launcher.model.install.InstallVerification;
+import pl.warlander.cdda.launcher.model.tasks.ScheduledTask;
+import pl.warlander.cdda.launcher.model.tasks.TaskPool;
+import pl.warlander.cdda.launcher.model.tasks.TaskPriority;
 import pl.warlander.cdda.launcher.model.mods.ModType;
+import pl.warlander.cdda.launcher.utils.HashUtils;
 import pl.warlander.cdda.launcher.utils.TimeUtils;
 
 public class GamePane extends VBox {
@@ -54,6 +75,9 @@ public class GamePane extends VBox {
     
     private static final String UPDATE_BUTTON_DOWNLOAD_TEXT = "Install selected game version";
     private static final String UPDATE_BUTTON_CANCEL_TEXT = "Cancel download";
+    private static final String UPDATE_BUTTON_INSTALLING_TEXT = "Installing...";
+    
+    private static final int CHANGELOG_PAGE_ENTRIES = 10;
 
     private final LauncherPane parent;
 
@@ -61,6 +85,7 @@ public class GamePane extends VBox {
     private final TextField updatedField;
     private final Button launchGameButton;
     private final Button restoreBackupButton;
+    private final Button verifyGameButton;
     
     private final RadioButton experimentalBuildsRadio;
     private final RadioButton stableBuildsRadio;
@@ -73,10 +98,16 @@ public class GamePane extends VBox {
     private final ComboBox<BuildData> buildsComboBox;
     private final WebView buildsChangelogView;
 
-    private DownloadTask newVersionDownloadTask;
+    private SegmentedDownload newVersionDownload;
+    private boolean updateInProgress;
+    private final BuildChannels buildChannels;
+    private boolean loadingOlderBuilds;
+    private ChangelogManager displayedChangelog;
+    private int renderedChangelogEntries;
 
     public GamePane(LauncherPane parent) {
         this.parent = parent;
+        this.buildChannels = new BuildChannels(parent.getDirectoriesManager().getHttpCache(), parent.getDirectoriesManager().getChangelogDirectory());
 
         Label buildLabel = createGridLabel("Build:", 0);
         buildField = createGridTextField(0);
@@ -107,6 +138,11 @@ public class GamePane extends VBox {
         restoreBackupButton.setTextFill(Color.RED);
         VBox.setMargin(restoreBackupButton, new Insets(5, 10, 5, 10));
         restoreBackupButton.setOnAction(this::onGameRestoreRequested);
+        
+        verifyGameButton = new Button("Verify game files");
+        verifyGameButton.setPrefWidth(Double.MAX_VALUE);
+        VBox.setMargin(verifyGameButton, new Insets(0, 10, 5, 10));
+        verifyGameButton.setOnAction(this::onGameVerifyRequested);
 
         ToggleGroup buildsGroup = new ToggleGroup();
         Label buildsLabel = createGridLabel("Builds: ", 0);
@@ -114,7 +150,7 @@ public class GamePane extends VBox {
         stableBuildsRadio = createGridRadioButton("Stable", buildsGroup, 2, 0);
         experimentalBuildsRadio.selectedProperty().addListener((ov, oldValue, newValue) -> {
             parent.getDirectoriesManager().getLauncherProperties().useExperimentalBuilds = newValue;
-            refreshBuilds();
+            refreshBuilds(TaskPriority.USER, false);
         });
 
         ToggleGroup graphicsGroup = new ToggleGroup();
@@ -123,7 +159,7 @@ public class GamePane extends VBox {
         cursesGraphicsRadio = createGridRadioButton("Curses", graphicsGroup, 2, 1);
         tilesGraphicsRadio.selectedProperty().addListener((ov, oldValue, newValue) -> {
             parent.getDirectoriesManager().getLauncherProperties().useTilesBuilds = newValue;
-            refreshBuilds();
+            refreshBuilds(TaskPriority.USER, false);
         });
 
         GridPane buildsGrid = new GridPane();
@@ -143,8 +179,18 @@ public class GamePane extends VBox {
         buildsComboBox = new ComboBox();
         buildsComboBox.setMaxWidth(Double.MAX_VALUE);
         HBox.setHgrow(buildsComboBox, Priority.ALWAYS);
+        buildsComboBox.setCellFactory((listView) -> new ListCell<BuildData>() {
+            protected void updateItem(BuildData item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : item.toString());
+                // older builds are fetched once the end of the list is scrolled into view
+                if (!empty && getIndex() == buildsComboBox.getItems().size() - 1) {
+                    loadOlderBuilds();
+                }
+            }
+        });
         Button refreshButton = new Button("Refresh");
-        refreshButton.setOnAction((evt) -> refreshBuilds());
+        refreshButton.setOnAction((evt) -> refreshBuilds(TaskPriority.USER));
         HBox buildSelectBox = new HBox(availableBuildsLabel, buildsComboBox, refreshButton);
         buildSelectBox.setSpacing(5);
         buildSelectBox.setPadding(new Insets(5, 10, 5, 10));
@@ -159,15 +205,16 @@ public class GamePane extends VBox {
 
         buildsChangelogView = new WebView();
         buildsChangelogView.setFontScale(0.75);
+        buildsChangelogView.addEventFilter(ScrollEvent.SCROLL, (evt) -> renderOlderChangelog());
         Node changelogWithBorder = Borders.wrap(buildsChangelogView).lineBorder().title("Changelog").buildAll();
 
-        getChildren().addAll(currentVersionGrid, launchGameButton, restoreBackupButton, new Separator(), buildsGrid, buildSelectBox, updateGameButton, changelogWithBorder);
+        getChildren().addAll(currentVersionGrid, launchGameButton, restoreBackupButton, verifyGameButton, new Separator(), buildsGrid, buildSelectBox, updateGameButton, changelogWithBorder);
         
         updateComponents();
-        refreshBuilds();
+        refreshBuilds(TaskPriority.NORMAL, true).thenRun(this::prefetchBuilds);
         
         if (parent.getDirectoriesManager().getLauncherProperties().updateDatabase) {
-            parent.submitTask(() -> {
+            parent.submitTask("Update database", TaskPool.NETWORK, TaskPriority.BACKGROUND, () -> {
                 Platform.runLater(() -> parent.getStatusBar().setText("Updating database"));
                 parent.getDirectoriesManager().updateDatabase();
             });
@@ -175,13 +222,17 @@ public class GamePane extends VBox {
     }
     
     private void updateComponents() {
-        CddaDirectory currentGameDirectory = parent.getDirectoriesManager().findCurrentGameDirectory();
+        GameDirectories gameDirectories = parent.getDirectoriesManager().getGameDirectories();
+        CddaDirectory currentGameDirectory = gameDirectories.getCurrentGameDirectory();
         if (currentGameDirectory != null) {
             buildField.setText(currentGameDirectory.getName());
-            LocalDateTime time = LocalDateTime.ofEpochSecond(currentGameDirectory.getRoot().lastModified() / 1000, 0, ZoneOffset.UTC);
+            // installs made before install manifests existed only have the folder time to go by
+            InstallManifest manifest = gameDirectories.getCurrentGameManifest();
+            long installed = manifest != null ? manifest.getInstalled() : currentGameDirectory.getRoot().lastModified();
+            LocalDateTime time = LocalDateTime.ofEpochSecond(installed / 1000, 0, ZoneOffset.UTC);
             updatedField.setText(time.toString().replace("T", " ") + " (" + TimeUtils.timestampToNowString(time) + ")");
             
-            File currentGameExecutable = currentGameDirectory.getExecutable();
+            File currentGameExecutable = gameDirectories.getCurrentGameExecutable();
             if (currentGameExecutable != null) {
                 launchGameButton.setText(LAUNCH_BUTTON_LAUNCH_TEXT);
                 launchGameButton.setDisable(false);
@@ -198,8 +249,17 @@ public class GamePane extends VBox {
         }
         
         
-        CddaDirectory backupDirectory = parent.getDirectoriesManager().findBackupDirectory();
-        restoreBackupButton.setDisable(backupDirectory == null);
+        CddaDirectory backupDirectory = gameDirectories.getBackupDirectory();
+        boolean snapshotsFound = gameDirectories.getSnapshots().length > 0;
+        restoreBackupButton.setDisable(backupDirectory == null && !snapshotsFound);
+        verifyGameButton.setDisable(gameDirectories.getCurrentGameManifest() == null);
+        
+        // install is being replaced, nothing may touch it until the update ends
+        if (updateInProgress) {
+            launchGameButton.setDisable(true);
+            restoreBackupButton.setDisable(true);
+            verifyGameButton.setDisable(true);
+        }
         
         if (parent.getDirectoriesManager().getLauncherProperties().useExperimentalBuilds) {
             experimentalBuildsRadio.setSelected(true);
@@ -238,7 +298,7 @@ public class GamePane extends VBox {
     }
     
     private void onGameRestoreRequested(ActionEvent evt) {
-        parent.submitTask(() -> {
+        parent.submitTask("Restore backup", TaskPool.DISK, TaskPriority.USER, () -> {
             Platform.runLater(() -> {
                 parent.getStatusBar().setText("Restoring backup");
             });
@@ -249,10 +309,51 @@ public class GamePane extends VBox {
         });
     }
     
+    private void onGameVerifyRequested(ActionEvent evt) {
+        CddaDirectory currentGameDirectory = parent.getDirectoriesManager().findCurrentGameDirectory();
+        if (currentGameDirectory == null) {
+            return;
+        }
+        
+        verifyGameButton.setDisable(true);
+        parent.submitTask("Verify game files", TaskPool.DISK, TaskPriority.USER, () -> {
+            Platform.runLater(() -> {
+                parent.getStatusBar().setText("Verifying game files");
+            });
+            String result = verifyGame(currentGameDirectory);
+            Platform.runLater(() -> {
+                parent.getStatusBar().setText(result);
+                updateComponents();
+            });
+        });
+    }
+    
+    private String verifyGame(CddaDirectory currentGameDirectory) {
+        InstallVerification verification = parent.getDirectoriesManager().verifyInstall(currentGameDirectory);
+        if (verification == null) {
+            return "Unable to verify game files";
+        }
+        if (verification.isIntact()) {
+            return "All " + verification.getFiles() + " game files are intact";
+        }
+        
+        int damagedFiles = verification.getDamagedEntries().size();
+        Platform.runLater(() -> {
+            parent.getStatusBar().setText("Repairing " + damagedFiles + " damaged game files");
+        });
+        if (parent.getDirectoriesManager().repairInstall(currentGameDirectory, verification)) {
+            return "Repaired " + damagedFiles + " damaged game files";
+        }
+        return damagedFiles + " game files are damaged, reinstall the game to repair them";
+    }
+    
     private void onGameUpdateRequested(ActionEvent evt) {
-        if (newVersionDownloadTask != null) {
-            newVersionDownloadTask.setCancelled(true);
-            newVersionDownloadTask = null;
+        if (updateInProgress) {
+            // cancelling the download aborts the rest of the update, which then ends it
+            if (newVersionDownload != null) {
+                newVersionDownload.cancel();
+            }
+            updateGameButton.setDisable(true);
             return;
         }
 
@@ -261,41 +362,183 @@ public class GamePane extends VBox {
             return;
         }
 
-        File temporaryDownloadFile;
-        FileOutputStream temporaryDownloadFileOutput;
+        if (parent.getDirectoriesManager().hasCachedArchive(selectedBuild)) {
+            startCachedUpdate(selectedBuild);
+        }
+        else if (parent.getDirectoriesManager().getLauncherProperties().streamingInstall) {
+            startStreamingUpdate(selectedBuild);
+        }
+        else {
+            startUpdate(selectedBuild);
+        }
+    }
+    
+    private void startUpdate(BuildData selectedBuild) {
         URL downloadURL;
         try {
-            temporaryDownloadFile = Files.createTempFile(null, null).toFile();
-            temporaryDownloadFileOutput = new FileOutputStream(temporaryDownloadFile);
             downloadURL = new URL(selectedBuild.getDownloadLink());
-        } catch (IOException ex) {
+        } catch (MalformedURLException ex) {
             logger.error("Unable to initialize file download", ex);
             return;
         }
-
-        newVersionDownloadTask = createNewVersionDownloadTask(downloadURL, temporaryDownloadFileOutput);
         
-        parent.submitDownload(newVersionDownloadTask);
+        File downloadFile = reserveDownloadFile(selectedBuild);
+        if (downloadFile == null) {
+            return;
+        }
+        SegmentedDownload download = createNewVersionDownload(downloadURL, downloadFile);
+        beginUpdate(download);
         
-        parent.submitTask(() -> {
-            if (parent.getDirectoriesManager().findCurrentGameDirectory() != null) {
-                backupGame();
-                if (parent.getDirectoriesManager().findBackupDirectory() == null) {
-                    logger.warn("No backup found, aborting update");
-                    return;
-                }
+        // download runs on its own threads, install stages only start once it completes
+        CompletableFuture<File> downloaded = parent.submitDownload(download);
+        ScheduledTask<Void> backup = parent.submitTask("Back up current version", TaskPool.DISK, TaskPriority.USER, this::backupBeforeUpdate, downloaded);
+        ScheduledTask<Void> extract = parent.submitTask("Extract " + selectedBuild.getName(), TaskPool.DISK, TaskPriority.USER,
+                () -> extractGame(selectedBuild, downloadFile), backup.getCompletion());
+        ScheduledTask<Void> migrate = parent.submitTask("Migrate saves and mods", TaskPool.DISK, TaskPriority.USER, this::finishUpdate, extract.getCompletion());
+        completeUpdate(migrate, download, downloadFile);
+    }
+    
+    private File reserveDownloadFile(BuildData selectedBuild) {
+        File downloadFile = parent.getDirectoriesManager().reserveDownloadFile(selectedBuild);
+        if (downloadFile == null) {
+            logger.warn("Previous install of " + selectedBuild.getName() + " is still using its download");
+            parent.getStatusBar().setText(selectedBuild.getName() + " is still being installed");
+        }
+        return downloadFile;
+    }
+    
+    // install stages keep reading the download after it completes, so the update only ends with its last stage
+    private void completeUpdate(ScheduledTask<Void> lastStage, SegmentedDownload download, File downloadFile) {
+        lastStage.getCompletion().whenComplete((result, ex) -> {
+            if (downloadFile != null) {
+                parent.getDirectoriesManager().releaseDownloadFile(downloadFile);
             }
-            extractGame(selectedBuild, temporaryDownloadFile);
-            if (parent.getDirectoriesManager().findBackupDirectory() != null) {
-                copySaves();
-                copyMods();
+            if (ex != null) {
+                abortUpdate(download, ex);
+            } else {
+                Platform.runLater(this::endUpdate);
             }
-            
-            updateModsInfo();
-            
-            Platform.runLater(() -> {
-                updateComponents();
-            });
+        });
+    }
+    
+    private void startCachedUpdate(BuildData selectedBuild) {
+        beginUpdate(null);
+        // archive is validated before anything is backed up, so a damaged one leaves the current install untouched
+        AtomicReference<File> cachedArchive = new AtomicReference();
+        ScheduledTask<Void> validate = parent.submitTask("Validate cached " + selectedBuild.getName(), TaskPool.DISK, TaskPriority.USER,
+                () -> cachedArchive.set(findCachedArchive(selectedBuild)));
+        ScheduledTask<Void> backup = parent.submitTask("Back up current version", TaskPool.DISK, TaskPriority.USER, this::backupBeforeUpdate, validate.getCompletion());
+        ScheduledTask<Void> extract = parent.submitTask("Extract " + selectedBuild.getName(), TaskPool.DISK, TaskPriority.USER,
+                () -> installCachedGame(selectedBuild, cachedArchive.get()), backup.getCompletion());
+        ScheduledTask<Void> migrate = parent.submitTask("Migrate saves and mods", TaskPool.DISK, TaskPriority.USER, this::finishUpdate, extract.getCompletion());
+        completeUpdate(migrate, null, null);
+    }
+    
+    private File findCachedArchive(BuildData selectedBuild) {
+        Platform.runLater(() -> {
+            parent.getStatusBar().setText("Validating cached " + selectedBuild.getName());
+        });
+        File cachedArchive = parent.getDirectoriesManager().findCachedArchive(selectedBuild);
+        if (cachedArchive == null) {
+            throw new CompletionException(new IOException("Cached archive of " + selectedBuild.getName() + " is damaged, install again to download it"));
+        }
+        return cachedArchive;
+    }
+    
+    private void startStreamingUpdate(BuildData selectedBuild) {
+        URL downloadURL;
+        try {
+            downloadURL = new URL(selectedBuild.getDownloadLink());
+        } catch (MalformedURLException ex) {
+            logger.error("Unable to initialize file download", ex);
+            return;
+        }
+        
+        File downloadFile = reserveDownloadFile(selectedBuild);
+        if (downloadFile == null) {
+            return;
+        }
+        SegmentedDownload download = createNewVersionDownload(downloadURL, downloadFile);
+        beginUpdate(download);
+        
+        ScheduledTask<Void> backup = parent.submitTask("Back up current version", TaskPool.DISK, TaskPriority.USER, this::backupBeforeUpdate);
+        ScheduledTask<Void> install = parent.submitTask("Download and extract " + selectedBuild.getName(), TaskPool.DISK, TaskPriority.USER, () -> {
+            // archive is extracted in file order as it arrives, while later segments download in parallel
+            parent.startDownload(download);
+            streamGame(selectedBuild, download);
+        }, backup.getCompletion());
+        ScheduledTask<Void> migrate = parent.submitTask("Migrate saves and mods", TaskPool.DISK, TaskPriority.USER, this::finishUpdate, install.getCompletion());
+        completeUpdate(migrate, download, downloadFile);
+    }
+    
+    private void backupBeforeUpdate() {
+        if (parent.getDirectoriesManager().findCurrentGameDirectory() != null) {
+            backupGame();
+            if (parent.getDirectoriesManager().findBackupDirectory() == null) {
+                throw new CompletionException(new IOException("No backup found"));
+            }
+        }
+    }
+    
+    private void restorePreviousVersion(File installedVersion) {
+        FileUtils.deleteQuietly(installedVersion);
+        logger.info("Restoring previous version");
+        parent.getDirectoriesManager().restoreBackup();
+    }
+    
+    private Void abortUpdate(SegmentedDownload download, Throwable ex) {
+        if (download != null) {
+            download.cancel();
+        }
+        Throwable cause = ex;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof IOException || cause instanceof CancellationException) {
+            logger.info("Update aborted: " + cause.getMessage());
+        } else {
+            logger.error("Update aborted", cause);
+        }
+        Platform.runLater(this::endUpdate);
+        return null;
+    }
+    
+    // every update path goes through here, the update button only stays usable to cancel a running download
+    private void beginUpdate(SegmentedDownload download) {
+        updateInProgress = true;
+        newVersionDownload = download;
+        if (download != null) {
+            updateGameButton.setText(UPDATE_BUTTON_CANCEL_TEXT);
+        } else {
+            updateGameButton.setText(UPDATE_BUTTON_INSTALLING_TEXT);
+            updateGameButton.setDisable(true);
+        }
+        updateComponents();
+    }
+    
+    private void endUpdate() {
+        updateInProgress = false;
+        newVersionDownload = null;
+        updateGameButton.setText(UPDATE_BUTTON_DOWNLOAD_TEXT);
+        updateGameButton.setDisable(false);
+        updateComponents();
+    }
+    
+    private void finishUpdate() {
+        if (parent.getDirectoriesManager().findBackupDirectory() != null) {
+            copySaves();
+            copyMods();
+            // rollback point is taken from the backup once the new version is playable, the update doesn't wait for it
+            parent.submitTask("Snapshot previous version", TaskPool.DISK, TaskPriority.BACKGROUND, this::snapshotBackup);
+        }
+        
+        updateModsInfo();
+    }
+    
+    private void snapshotBackup() {
+        parent.getDirectoriesManager().snapshotBackup();
+        Platform.runLater(() -> {
+            updateComponents();
         });
     }
     
@@ -310,62 +553,69 @@ public class GamePane extends VBox {
         Platform.runLater(() -> {
             parent.getStatusBar().setText("Extracting " + selectedBuild.getName());
         });
-        parent.getDirectoriesManager().extractAndInstallVersion(selectedBuild, downloadedFile);
-        downloadedFile.delete();
+        File installedVersion = parent.getDirectoriesManager().extractAndInstallVersion(selectedBuild, downloadedFile);
+        if (installedVersion == null) {
+            downloadedFile.delete();
+            restorePreviousVersion(installedVersion);
+            throw new CompletionException(new IOException("Unable to extract " + selectedBuild.getName()));
+        }
+        // archive stays in the cache for reinstalls and repairs of damaged files
+        parent.getDirectoriesManager().cacheArchive(selectedBuild, downloadedFile, null);
     }
     
-    private void copySaves() {
-        CddaDirectory backupDirectory = parent.getDirectoriesManager().findBackupDirectory();
-        CddaDirectory currentDirectory = parent.getDirectoriesManager().findCurrentGameDirectory();
-        
-        try {
-            Platform.runLater(() -> {
-                logger.info("Copying memorial");
-                parent.getStatusBar().setText("Copying memorial");
-            });
-            FileUtils.copyDirectory(backupDirectory.getMemorialDirectory(), currentDirectory.getMemorialDirectory());
-        } catch (IOException ex) {
-            logger.error("Unable to copy memorial", ex);
+    private void installCachedGame(BuildData selectedBuild, File cachedArchive) {
+        Platform.runLater(() -> {
+            parent.getStatusBar().setText("Installing " + selectedBuild.getName() + " from cache");
+        });
+        File installedVersion = parent.getDirectoriesManager().extractAndInstallVersion(selectedBuild, cachedArchive);
+        if (installedVersion == null) {
+            restorePreviousVersion(installedVersion);
+            throw new CompletionException(new IOException("Unable to extract " + selectedBuild.getName()));
         }
-        
-        try {
-            Platform.runLater(() -> {
-                logger.info("Copying graveyard");
-                parent.getStatusBar().setText("Copying graveyard");
-            });
-            FileUtils.copyDirectory(backupDirectory.getGraveyardDirectory(), currentDirectory.getGraveyardDirectory());
+    }
+    
+    private void streamGame(BuildData selectedBuild, SegmentedDownload download) {
+        Platform.runLater(() -> {
+            parent.getStatusBar().setText("Downloading and extracting " + selectedBuild.getName());
+        });
+        File installedVersion = null;
+        // extraction always consumes the whole stream, so the archive hash comes without reading it again
+        MessageDigest digest = HashUtils.createSha256();
+        try (InputStream downloadInput = new DigestInputStream(download.openStream(), digest)) {
+            installedVersion = parent.getDirectoriesManager().streamAndInstallVersion(selectedBuild, download, downloadInput);
         } catch (IOException ex) {
-            logger.error("Unable to copy graveyard", ex);
+            logger.error("Unable to close download stream", ex);
         }
-        
-        try {
-            Platform.runLater(() -> {
-                logger.info("Copying templates");
-                parent.getStatusBar().setText("Copying templates");
-            });
-            FileUtils.copyDirectory(backupDirectory.getTemplatesDirectory(), currentDirectory.getTemplatesDirectory());
-        } catch (IOException ex) {
-            logger.error("Unable to copy templates", ex);
-        }
-        
-        try {
-            Platform.runLater(() -> {
-                logger.info("Copying config");
-                parent.getStatusBar().setText("Copying config");
-            });
-            FileUtils.copyDirectory(backupDirectory.getConfigDirectory(), currentDirectory.getConfigDirectory());
-        } catch (IOException ex) {
-            logger.error("Unable to copy config", ex);
+        if (installedVersion == null || download.isCancelled()) {
+            download.cancel();
+            restorePreviousVersion(installedVersion);
+            throw new CompletionException(new IOException("Unable to install " + selectedBuild.getName()));
         }
+        parent.getDirectoriesManager().cacheArchive(selectedBuild, download.getTargetFile(), HashUtils.toHex(digest.digest()));
+    }
+    
+    private void copySaves() {
+        CddaDirectory backupDirectory = parent.getDirectoriesManager().findBackupDirectory();
+        CddaDirectory currentDirectory = parent.getDirectoriesManager().findCurrentGameDirectory();
+        MigrationMode migrationMode = parent.getDirectoriesManager().getLauncherProperties().saveMigration;
+        DirectoryMigrator migrator = new DirectoryMigrator(migrationMode, parent.getDirectoriesManager().createDirectoryCopier());
         
+        migrateDirectory(migrator, "memorial", backupDirectory.getMemorialDirectory(), currentDirectory.getMemorialDirectory());
+        migrateDirectory(migrator, "graveyard", backupDirectory.getGraveyardDirectory(), currentDirectory.getGraveyardDirectory());
+        migrateDirectory(migrator, "templates", backupDirectory.getTemplatesDirectory(), currentDirectory.getTemplatesDirectory());
+        migrateDirectory(migrator, "config", backupDirectory.getConfigDirectory(), currentDirectory.getConfigDirectory());
+        migrateDirectory(migrator, "saves", backupDirectory.getSavesDirectory(), currentDirectory.getSavesDirectory());
+    }
+    
+    private void migrateDirectory(DirectoryMigrator migrator, String name, File source, File target) {
+        logger.info("Copying " + name);
+        Platform.runLater(() -> {
+            parent.getStatusBar().setText("Copying " + name);
+        });
         try {
-            Platform.runLater(() -> {
-                logger.info("Copying saves");
-                parent.getStatusBar().setText("Copying saves");
-            });
-            FileUtils.copyDirectory(backupDirectory.getSavesDirectory(), currentDirectory.getSavesDirectory());
+            migrator.migrate(source, target, createCopyProgressListener("Copying " + name));
         } catch (IOException ex) {
-            logger.error("Unable to copy saves", ex);
+            logger.error("Unable to copy " + name, ex);
         }
     }
     
@@ -375,10 +625,11 @@ public class GamePane extends VBox {
         });
         
         CddaDirectory currentGameDirectory = parent.getDirectoriesManager().findCurrentGameDirectory();
-        CddaDirectory backupDirectory = parent.getDirectoriesManager().findCurrentGameDirectory();
+        CddaDirectory backupDirectory = parent.getDirectoriesManager().findBackupDirectory();
+        DirectoryCopier copier = parent.getDirectoriesManager().createDirectoryCopier();
         
-        GameModInfo[] newMods = currentGameDirectory.findMods();
-        GameModInfo[] oldMods = backupDirectory.findMods();
+        GameModInfo[] newMods = currentGameDirectory.findMods(parent.getDirectoriesManager().getModIndex());
+        GameModInfo[] oldMods = backupDirectory.findMods(parent.getDirectoriesManager().getModIndex());
         
         outer:
         for (GameModInfo oldMod : oldMods) {
@@ -390,20 +641,30 @@ public class GamePane extends VBox {
             }
             
             try {
-                FileUtils.copyDirectory(oldMod.getFolder(), new File(currentGameDirectory.getModsDirectory(), oldMod.getFolder().getName()));
+                File newModFolder = new File(currentGameDirectory.getModsDirectory(), oldMod.getFolder().getName());
+                copier.copyDirectory(oldMod.getFolder(), newModFolder, createCopyProgressListener("Copying mod " + oldMod.getName()));
             } catch (IOException ex) {
                 logger.error("Unable to copy mod " + oldMod.getName(), ex);
             }
         }
     }
     
+    private CopyProgressListener createCopyProgressListener(String text) {
+        return (files, bytes) -> {
+            String progressText = text + " (" + files + " files, " + bytes / 1024 / 1024 + " MB)";
+            Platform.runLater(() -> {
+                parent.getStatusBar().setText(progressText);
+            });
+        };
+    }
+    
     private void updateModsInfo() {
         Platform.runLater(() -> {
             parent.getStatusBar().setText("Updating mods info");
         });
         
         CddaDirectory currentGameDirectory = parent.getDirectoriesManager().findCurrentGameDirectory();
-        GameModInfo[] newMods = currentGameDirectory.findMods();
+        GameModInfo[] newMods = currentGameDirectory.findMods(parent.getDirectoriesManager().getModIndex());
         LauncherModInfo[] oldLauncherMods = parent.getDirectoriesManager().loadLauncherModsInfo();
         ArrayList<LauncherModInfo> updatedLauncherMods = new ArrayList();
         
@@ -421,24 +682,23 @@ public class GamePane extends VBox {
         parent.getDirectoriesManager().saveLauncherModsInfo(updatedLauncherMods.toArray(LauncherModInfo[]::new));
     }
 
-    private DownloadTask createNewVersionDownloadTask(URL downloadURL, FileOutputStream output) {
-        return new DownloadTask(downloadURL, output, new DownloadListener() {
+    private SegmentedDownload createNewVersionDownload(URL downloadURL, File downloadFile) {
+        return parent.getDownloader().createDownload(downloadURL, downloadFile, new DownloadListener() {
             private String fileName;
-            private int size;
 
-            public void onUpdate(int bytes, int totalDownloaded) {
-                double progress = (double) totalDownloaded / size;
-                String progressPercent = String.format("%.2f", progress * 100) + "%";
+            public void onUpdate(long downloaded, long size, double bytesPerSecond) {
+                double progress = size > 0 ? (double) downloaded / size : -1;
+                String progressPercent = size > 0 ? String.format("%.2f", progress * 100) + "%" : downloaded / 1024 / 1024 + " MB";
+                String speed = String.format("%.1f", bytesPerSecond / 1024 / 1024) + " MB/s";
                 Platform.runLater(() -> {
                     parent.getStatusBar().setProgress(progress);
-                    parent.getStatusBar().setText("Downloading " + fileName + " (" + progressPercent + ")");
+                    parent.getStatusBar().setText("Downloading " + fileName + " (" + progressPercent + ", " + speed + ")");
                 });
             }
 
-            public void onStart(String fileName, int size) {
+            public void onStart(String fileName, long size) {
                 logger.info("Starting file download: " + fileName);
                 this.fileName = fileName;
-                this.size = size;
                 Platform.runLater(() -> {
                     launchGameButton.setDisable(true);
                     updateGameButton.setText(UPDATE_BUTTON_CANCEL_TEXT);
@@ -450,49 +710,150 @@ public class GamePane extends VBox {
             public void onComplete() {
                 logger.info("File download completed: " + fileName);
                 Platform.runLater(() -> {
-                    updateGameButton.setText(UPDATE_BUTTON_DOWNLOAD_TEXT);
-                    parent.getStatusBar().setText("Ready");
+                    // backup, extraction and migration still follow, the update ends with them
+                    updateGameButton.setText(UPDATE_BUTTON_INSTALLING_TEXT);
+                    updateGameButton.setDisable(true);
+                    parent.getStatusBar().setText("Installing " + fileName);
                     parent.getStatusBar().setProgress(0);
-                    updateComponents();
                 });
             }
 
             public void onCancel() {
                 logger.info("File download cancelled: " + fileName);
+                onDownloadStopped();
+            }
+
+            public void onError(Exception ex) {
+                logger.info("File download failed: " + fileName);
+                onDownloadStopped();
+            }
+
+            // the update itself ends once its remaining stages are aborted
+            private void onDownloadStopped() {
                 Platform.runLater(() -> {
-                    updateGameButton.setText(UPDATE_BUTTON_DOWNLOAD_TEXT);
                     parent.getStatusBar().setText("Ready");
                     parent.getStatusBar().setProgress(0);
-                    updateComponents();
                 });
             }
         });
     }
 
-    private void refreshBuilds() {
+    private void refreshBuilds(TaskPriority priority) {
+        refreshBuilds(priority, true);
+    }
+    
+    private CompletableFuture<Void> refreshBuilds(TaskPriority priority, boolean force) {
+        boolean experimental = parent.getDirectoriesManager().getLauncherProperties().useExperimentalBuilds;
+        boolean tiles = parent.getDirectoriesManager().getLauncherProperties().useTilesBuilds;
+        
+        // anything fetched before, including prefetched channels, is shown without waiting for the network
+        BuildData[] knownBuilds = buildChannels.getBuilds(experimental, tiles);
+        if (knownBuilds != null) {
+            showBuilds(knownBuilds);
+        }
+        ChangelogManager knownChangelog = buildChannels.getChangelog(experimental);
+        if (knownChangelog != null) {
+            showChangelog(knownChangelog, knownChangelog.ParseChangelog(0, CHANGELOG_PAGE_ENTRIES));
+        }
+        if (!force && buildChannels.isFresh(experimental, tiles)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
         launchGameButton.setDisable(true);
         restoreBackupButton.setDisable(true);
-        parent.submitTask(() -> {
-            updateBuilds();
-            updateChangelog();
+        ScheduledTask<Void> buildsTask = parent.submitTask("Refresh builds", TaskPool.NETWORK, priority, () -> updateBuilds(experimental, tiles));
+        ScheduledTask<Void> changelogTask = parent.submitTask("Refresh changelog", TaskPool.NETWORK, priority, () -> updateChangelog(experimental));
+        return CompletableFuture.allOf(buildsTask.getCompletion(), changelogTask.getCompletion()).handle((result, ex) -> {
             Platform.runLater(() -> {
                 updateComponents();
             });
+            return null;
+        });
+    }
+    
+    private void prefetchBuilds() {
+        boolean currentExperimental = parent.getDirectoriesManager().getLauncherProperties().useExperimentalBuilds;
+        boolean currentTiles = parent.getDirectoriesManager().getLauncherProperties().useTilesBuilds;
+        for (boolean experimental : new boolean[] {true, false}) {
+            for (boolean tiles : new boolean[] {true, false}) {
+                if (experimental == currentExperimental && tiles == currentTiles) {
+                    continue;
+                }
+                parent.submitTask("Prefetch builds", TaskPool.NETWORK, TaskPriority.BACKGROUND, () -> {
+                    try {
+                        buildChannels.fetchBuilds(experimental, tiles);
+                    } catch (IOException ex) {
+                        logger.warn("Unable to prefetch builds: " + ex.getMessage());
+                    }
+                });
+            }
+            if (experimental != currentExperimental) {
+                parent.submitTask("Prefetch changelog", TaskPool.NETWORK, TaskPriority.BACKGROUND, () -> {
+                    try {
+                        buildChannels.fetchChangelog(experimental);
+                    } catch (IOException ex) {
+                        logger.warn("Unable to prefetch changelog: " + ex.getMessage());
+                    }
+                });
+            }
+        }
+    }
+    
+    private void loadOlderBuilds() {
+        boolean experimental = parent.getDirectoriesManager().getLauncherProperties().useExperimentalBuilds;
+        boolean tiles = parent.getDirectoriesManager().getLauncherProperties().useTilesBuilds;
+        if (loadingOlderBuilds || !buildChannels.hasMoreBuilds(experimental, tiles)) {
+            return;
+        }
+        
+        loadingOlderBuilds = true;
+        parent.submitTask("Load older builds", TaskPool.NETWORK, TaskPriority.USER, () -> {
+            try {
+                BuildData[] olderBuilds = buildChannels.fetchNextBuilds(experimental, tiles);
+                Platform.runLater(() -> {
+                    if (isCurrentChannel(experimental, tiles)) {
+                        buildsComboBox.getItems().addAll(olderBuilds);
+                    }
+                });
+            } catch (IOException ex) {
+                logger.error("Unable to fetch older builds", ex);
+            } finally {
+                Platform.runLater(() -> {
+                    loadingOlderBuilds = false;
+                });
+            }
         });
     }
+    
+    private boolean isCurrentChannel(boolean experimental, boolean tiles) {
+        return parent.getDirectoriesManager().getLauncherProperties().useExperimentalBuilds == experimental
+                && parent.getDirectoriesManager().getLauncherProperties().useTilesBuilds == tiles;
+    }
+    
+    private void showBuilds(BuildData[] builds) {
+        BuildData selectedBuild = buildsComboBox.getValue();
+        buildsComboBox.getItems().setAll(builds);
+        // background refreshes keep the user's choice when it is still listed
+        for (BuildData build : builds) {
+            if (selectedBuild != null && build.getName().equals(selectedBuild.getName()) && build.getGraphics().equals(selectedBuild.getGraphics())) {
+                buildsComboBox.getSelectionModel().select(build);
+                return;
+            }
+        }
+        buildsComboBox.getSelectionModel().selectFirst();
+    }
 
-    private void updateBuilds() {
+    private void updateBuilds(boolean experimental, boolean tiles) {
         try {
             logger.info("Fetching build list");
             Platform.runLater(() -> {
                 parent.getStatusBar().setText("Fetching new builds");
             });
-            BuildsManager buildsManager = BuildsManager.createBuildsManager(parent.getDirectoriesManager().getLauncherProperties().useExperimentalBuilds);
-            BuildData[] builds = buildsManager.fetchBuilds(parent.getDirectoriesManager().getLauncherProperties().useTilesBuilds);
+            BuildData[] builds = buildChannels.fetchBuilds(experimental, tiles);
             Platform.runLater(() -> {
-                buildsComboBox.getItems().clear();
-                buildsComboBox.getItems().addAll(builds);
-                buildsComboBox.getSelectionModel().selectFirst();
+                if (isCurrentChannel(experimental, tiles)) {
+                    showBuilds(builds);
+                }
             });
             logger.info("Build list downloaded successfully");
         } catch (IOException ex) {
@@ -500,31 +861,54 @@ public class GamePane extends VBox {
         }
     }
 
-    private void updateChangelog() {
+    private void updateChangelog(boolean experimental) {
         try {
             logger.info("Fetching changelog");
             Platform.runLater(() -> {
                 parent.getStatusBar().setText("Fetching changelog");
             });
-
-            ChangelogManager changelogManager = ChangelogManager.createChangelogManager(parent.getDirectoriesManager().getLauncherProperties().useExperimentalBuilds);
-            changelogManager.downloadChangelog();
-            Platform.runLater(() -> {
-                parent.getStatusBar().setText("Parsing changelog");
-            });
-            String parsedChangelog = changelogManager.ParseChangelog();
+            ChangelogManager changelogManager = buildChannels.fetchChangelog(experimental);
+            String firstEntries = changelogManager.ParseChangelog(0, CHANGELOG_PAGE_ENTRIES);
             Platform.runLater(() -> {
-                buildsChangelogView.getEngine().loadContent(parsedChangelog);
+                if (parent.getDirectoriesManager().getLauncherProperties().useExperimentalBuilds == experimental) {
+                    showChangelog(changelogManager, firstEntries);
+                }
             });
             logger.info("Changelog downloaded successfully");
         } catch (IOException ex) {
             logger.error("Unable to fetch changelog", ex);
             Platform.runLater(() -> {
-                buildsChangelogView.getEngine().loadContent("<p><b>Unable to load changelog</b></p>");
+                if (parent.getDirectoriesManager().getLauncherProperties().useExperimentalBuilds == experimental) {
+                    displayedChangelog = null;
+                    buildsChangelogView.getEngine().loadContent("<p><b>Unable to load changelog</b></p>");
+                }
             });
         }
     }
 
+    private void showChangelog(ChangelogManager changelogManager, String firstEntries) {
+        displayedChangelog = changelogManager;
+        renderedChangelogEntries = Math.min(CHANGELOG_PAGE_ENTRIES, changelogManager.getEntryCount());
+        buildsChangelogView.getEngine().loadContent(firstEntries);
+    }
+    
+    private void renderOlderChangelog() {
+        if (displayedChangelog == null || renderedChangelogEntries >= displayedChangelog.getEntryCount()
+                || buildsChangelogView.getEngine().getLoadWorker().getState() != Worker.State.SUCCEEDED) {
+            return;
+        }
+        
+        // older entries are appended once the view is scrolled within a screen of the end
+        Object nearEnd = buildsChangelogView.getEngine().executeScript("window.scrollY + 2 * window.innerHeight >= document.body.scrollHeight");
+        if (!Boolean.TRUE.equals(nearEnd)) {
+            return;
+        }
+        
+        String olderEntries = displayedChangelog.ParseChangelog(renderedChangelogEntries, renderedChangelogEntries + CHANGELOG_PAGE_ENTRIES);
+        renderedChangelogEntries = Math.min(renderedChangelogEntries + CHANGELOG_PAGE_ENTRIES, displayedChangelog.getEntryCount());
+        buildsChangelogView.getEngine().executeScript("document.body.insertAdjacentHTML('beforeend', " + new Gson().toJson(olderEntries) + ")");
+    }
+
     private Label createGridLabel(String text, int row) {
         Label label = new Label(text);
         label.setPrefWidth(Double.MAX_VALUE);
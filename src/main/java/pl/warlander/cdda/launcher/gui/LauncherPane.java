@@ -1,8 +1,9 @@
 package pl.warlander.cdda.launcher.gui;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import javafx.application.Platform;
 import javafx.scene.Node;
 import javafx.scene.control.Tab;
@@ -13,12 +14,15 @@ import org.controlsfx.glyphfont.FontAwesome;
 import org.controlsfx.glyphfont.Glyph;
 import org.controlsfx.glyphfont.GlyphFont;
 import org.controlsfx.glyphfont.GlyphFontRegistry;
-import org.kamranzafar.jddl.DirectDownloader;
-import org.kamranzafar.jddl.DownloadAdaptor;
-import org.kamranzafar.jddl.DownloadTask;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.warlander.cdda.launcher.model.directories.DirectoriesManager;
+import pl.warlander.cdda.launcher.model.download.SegmentedDownload;
+import pl.warlander.cdda.launcher.model.download.SegmentedDownloader;
+import pl.warlander.cdda.launcher.model.tasks.ScheduledTask;
+import pl.warlander.cdda.launcher.model.tasks.TaskPool;
+import pl.warlander.cdda.launcher.model.tasks.TaskPriority;
+import pl.warlander.cdda.launcher.model.tasks.TaskScheduler;
 
 public class LauncherPane extends BorderPane {
     
@@ -34,19 +38,21 @@ public class LauncherPane extends BorderPane {
     private final WorldsPane worldsPane;
     private final SettingsPane settingsPane;
     
-    private final ExecutorService executor;
+    private final TaskScheduler scheduler;
+    private final AtomicInteger activeTasks;
     
-    private final DirectDownloader downloader;
+    private final SegmentedDownloader downloader;
     private final DirectoriesManager directoriesManager;
     
     public LauncherPane() {
-        executor = Executors.newSingleThreadExecutor();
+        scheduler = new TaskScheduler();
+        activeTasks = new AtomicInteger();
         statusBar = new StatusBar();
         setBottom(statusBar);
         
-        downloader = new DirectDownloader();
         directoriesManager = new DirectoriesManager();
         directoriesManager.initialize();
+        downloader = new SegmentedDownloader(directoriesManager.getLauncherProperties().downloadConnections);
         
         GlyphFont fontAwesome = GlyphFontRegistry.font("FontAwesome");
         
@@ -80,39 +86,44 @@ public class LauncherPane extends BorderPane {
         return tab;
     }
     
-    public void submitDownload(DownloadTask downloadTask) {
-        downloader.download(downloadTask);
-        submitTask(downloader);
-        AtomicBoolean downloading = new AtomicBoolean(true);
-        downloadTask.addListener(new DownloadAdaptor() {
-            public void onComplete() {
-                downloading.set(false);
-            }
-
-            public void onCancel() {
-                downloading.set(false);
-            }
-        });
-        submitTask(() -> {
-            while (downloading.get()) {
-                try {
-                    Thread.sleep(10);
-                } catch (InterruptedException ex) {}
-            }
-        });
+    public CompletableFuture<File> submitDownload(SegmentedDownload download) {
+        // runs on the downloader's own threads, dependent stages chain onto the returned future
+        downloader.start(download);
+        return download.getCompletion();
+    }
+    
+    public void startDownload(SegmentedDownload download) {
+        downloader.start(download);
     }
     
-    public void submitTask(Runnable runnable) {
-        executor.submit(() -> {
-            Platform.runLater(() -> statusBar.setText("Starting new task"));
-            try {
-                runnable.run();
-            } catch (Exception ex) {
-                logger.error("Error occured while executing parallel task", ex);
+    public ScheduledTask<Void> submitTask(String name, TaskPool pool, TaskPriority priority, Runnable runnable, CompletableFuture<?>... dependencies) {
+        return scheduler.submit(name, pool, priority, () -> runTask(runnable), dependencies);
+    }
+    
+    private void runTask(Runnable runnable) {
+        activeTasks.incrementAndGet();
+        Platform.runLater(() -> statusBar.setText("Starting new task"));
+        try {
+            runnable.run();
+        } catch (CompletionException ex) {
+            // deliberate abort, handled by whoever chained onto the task
+            throw ex;
+        } catch (RuntimeException ex) {
+            logger.error("Error occured while executing parallel task", ex);
+            throw ex;
+        } finally {
+            if (activeTasks.decrementAndGet() == 0) {
+                Platform.runLater(() -> statusBar.setText("Ready"));
             }
-            
-            Platform.runLater(() -> statusBar.setText("Ready"));
-        });
+        }
+    }
+    
+    public TaskScheduler getScheduler() {
+        return scheduler;
+    }
+    
+    public SegmentedDownloader getDownloader() {
+        return downloader;
     }
     
     public StatusBar getStatusBar() {
@@ -49,7 +49,7 @@ public class ModsPane extends VBox {
         
         CddaDirectory currentGameDirectory = parent.getDirectoriesManager().findCurrentGameDirectory();
         if (currentGameDirectory != null) {
-            GameModInfo[] foundMods = currentGameDirectory.findMods();
+            GameModInfo[] foundMods = currentGameDirectory.findMods(parent.getDirectoriesManager().getModIndex());
             for (GameModInfo foundMod : foundMods) {
                 ModData modData = new ModData(foundMod.getName(), foundMod.getCategory(), ModType.MAINLINED, true);
                 modsList.add(modData);
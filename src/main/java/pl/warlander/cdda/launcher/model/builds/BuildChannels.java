@@ -0,0 +1,122 @@
+package pl.warlander.cdda.launcher.model.builds;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import pl.warlander.cdda.launcher.model.changelog.ChangelogManager;
+import pl.warlander.cdda.launcher.model.http.HttpCache;
+
+public class BuildChannels {
+    
+    // older lists are still shown right away, but refreshed in the background
+    private static final long STALE_MILLIS = 2 * 60 * 1000;
+    
+    private final HttpCache cache;
+    private final File changelogDirectory;
+    private final ConcurrentHashMap<String, Fetched<BuildPage>> builds;
+    private final ConcurrentHashMap<Boolean, Fetched<ChangelogManager>> changelogs;
+    
+    public BuildChannels(HttpCache cache, File changelogDirectory) {
+        this.cache = cache;
+        this.changelogDirectory = changelogDirectory;
+        this.builds = new ConcurrentHashMap();
+        this.changelogs = new ConcurrentHashMap();
+    }
+    
+    public BuildData[] getBuilds(boolean experimental, boolean tiles) {
+        Fetched<BuildPage> fetched = builds.get(getChannelKey(experimental, tiles));
+        return fetched != null ? fetched.value.getBuilds() : null;
+    }
+    
+    public boolean hasMoreBuilds(boolean experimental, boolean tiles) {
+        Fetched<BuildPage> fetched = builds.get(getChannelKey(experimental, tiles));
+        return fetched != null && !fetched.value.isLastPage();
+    }
+    
+    public ChangelogManager getChangelog(boolean experimental) {
+        Fetched<ChangelogManager> fetched = changelogs.get(experimental);
+        return fetched != null ? fetched.value : null;
+    }
+    
+    public boolean isFresh(boolean experimental, boolean tiles) {
+        Fetched<BuildPage> fetchedBuilds = builds.get(getChannelKey(experimental, tiles));
+        Fetched<ChangelogManager> fetchedChangelog = changelogs.get(experimental);
+        return fetchedBuilds != null && !fetchedBuilds.isStale() && fetchedChangelog != null && !fetchedChangelog.isStale();
+    }
+    
+    public BuildData[] fetchBuilds(boolean experimental, boolean tiles) throws IOException {
+        BuildPage firstPage = BuildsManager.createBuildsManager(experimental, cache).fetchBuilds(tiles, 0);
+        builds.put(getChannelKey(experimental, tiles), new Fetched(firstPage, System.currentTimeMillis()));
+        return firstPage.getBuilds();
+    }
+    
+    // builds of the next page only, the accumulated list is available from getBuilds
+    public BuildData[] fetchNextBuilds(boolean experimental, boolean tiles) throws IOException {
+        String channelKey = getChannelKey(experimental, tiles);
+        Fetched<BuildPage> fetched = builds.get(channelKey);
+        if (fetched == null) {
+            return fetchBuilds(experimental, tiles);
+        }
+        
+        BuildsManager buildsManager = BuildsManager.createBuildsManager(experimental, cache);
+        BuildPage loaded = fetched.value;
+        // pages are slices of a listing that may have gained builds since the last one, so they can overlap
+        HashSet<String> loadedLinks = new HashSet();
+        for (BuildData build : loaded.getBuilds()) {
+            loadedLinks.add(build.getDownloadLink());
+        }
+        BuildPage nextPage;
+        int addedBuilds;
+        // pages without a new build for this platform are skipped, callers wait for more builds or the end
+        do {
+            nextPage = buildsManager.fetchBuilds(tiles, loaded.getPage() + 1);
+            ArrayList<BuildData> accumulated = new ArrayList(Arrays.asList(loaded.getBuilds()));
+            for (BuildData build : nextPage.getBuilds()) {
+                if (loadedLinks.add(build.getDownloadLink())) {
+                    accumulated.add(build);
+                }
+            }
+            addedBuilds = accumulated.size() - loaded.getBuilds().length;
+            loaded = new BuildPage(nextPage.getPage(), accumulated.toArray(BuildData[]::new), nextPage.isLastPage());
+        } while (addedBuilds == 0 && !nextPage.isLastPage());
+        
+        BuildData[] newBuilds = Arrays.copyOfRange(loaded.getBuilds(), fetched.value.getBuilds().length, loaded.getBuilds().length);
+        // a refresh that happened meanwhile starts the list over, its first page wins
+        if (!builds.replace(channelKey, fetched, new Fetched(loaded, fetched.time))) {
+            return new BuildData[0];
+        }
+        return newBuilds;
+    }
+    
+    // entries are rendered on demand, see ChangelogManager.ParseChangelog(int, int)
+    public ChangelogManager fetchChangelog(boolean experimental) throws IOException {
+        ChangelogManager changelogManager = ChangelogManager.createChangelogManager(experimental, cache, changelogDirectory);
+        changelogManager.downloadChangelog();
+        changelogs.put(experimental, new Fetched(changelogManager, System.currentTimeMillis()));
+        return changelogManager;
+    }
+    
+    private String getChannelKey(boolean experimental, boolean tiles) {
+        return (experimental ? "experimental" : "stable") + "/" + (tiles ? "tiles" : "curses");
+    }
+    
+    private static class Fetched<T> {
+        
+        private final T value;
+        private final long time;
+        
+        private Fetched(T value, long time) {
+            this.value = value;
+            this.time = time;
+        }
+        
+        private boolean isStale() {
+            return System.currentTimeMillis() - time > STALE_MILLIS;
+        }
+    
+    }
+
+}
@@ -0,0 +1,27 @@
+package pl.warlander.cdda.launcher.model.builds;
+
+public class BuildPage {
+    
+    private final int page;
+    private final BuildData[] builds;
+    private final boolean lastPage;
+    
+    public BuildPage(int page, BuildData[] builds, boolean lastPage) {
+        this.page = page;
+        this.builds = builds;
+        this.lastPage = lastPage;
+    }
+    
+    public int getPage() {
+        return page;
+    }
+    
+    public BuildData[] getBuilds() {
+        return builds;
+    }
+    
+    public boolean isLastPage() {
+        return lastPage;
+    }
+
+}
@@ -1,17 +1,18 @@
 package pl.warlander.cdda.launcher.model.builds;
 
 import java.io.IOException;
+import pl.warlander.cdda.launcher.model.http.HttpCache;
 
 public interface BuildsManager {
     
-    public abstract BuildData[] fetchBuilds(boolean tiles) throws IOException;
+    public abstract BuildPage fetchBuilds(boolean tiles, int page) throws IOException;
     
-    public static BuildsManager createBuildsManager(boolean experimental) {
+    public static BuildsManager createBuildsManager(boolean experimental, HttpCache cache) {
         if (experimental) {
-            return new ExperimentalBuildsManager();
+            return new ExperimentalBuildsManager(cache);
         }
         else {
-            return new StableBuildsManager();
+            return new StableBuildsManager(cache);
         }
     }
     
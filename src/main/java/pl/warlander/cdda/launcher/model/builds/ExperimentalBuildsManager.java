@@ -1,14 +1,18 @@
 package pl.warlander.cdda.launcher.model.builds;
 
 import java.io.IOException;
+import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import org.apache.commons.lang3.SystemUtils;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
+import pl.warlander.cdda.launcher.model.http.HttpCache;
 
 public class ExperimentalBuildsManager implements BuildsManager {
     
@@ -21,14 +25,32 @@ public class ExperimentalBuildsManager implements BuildsManager {
     private static final String TILES_FOLDER = "Tiles";
     private static final String CURSES_FOLDER = "Curses";
     
-    protected ExperimentalBuildsManager() {}
+    private static final int PAGE_SIZE = 30;
+    // the listing comes as a single page, parsed once and handed out in slices
+    private static final long LISTING_MEMO_MILLIS = 60000;
     
-    public BuildData[] fetchBuilds(boolean tiles) throws IOException {
+    private final HttpCache cache;
+    
+    protected ExperimentalBuildsManager(HttpCache cache) {
+        this.cache = cache;
+    }
+    
+    public BuildPage fetchBuilds(boolean tiles, int page) throws IOException {
         String graphicsFolder = tiles ? TILES_FOLDER : CURSES_FOLDER;
         String currentPlatformBuilds = BUILDS_PATH + "/" + getCurrentPlatformFolder() + "/" + graphicsFolder;
         
+        BuildData[] builds = cache.getCoalescer().execute("builds " + currentPlatformBuilds, LISTING_MEMO_MILLIS,
+                () -> parseListing(cache.fetch(new URL(currentPlatformBuilds)).getBodyAsString(), currentPlatformBuilds, graphicsFolder));
+        int from = Math.min(page * PAGE_SIZE, builds.length);
+        int to = Math.min(from + PAGE_SIZE, builds.length);
+        return new BuildPage(page, Arrays.copyOfRange(builds, from, to), to == builds.length);
+    }
+    
+    public static BuildData[] parseListing(String listing, String currentPlatformBuilds, String graphicsFolder) {
         ArrayList<BuildData> builds = new ArrayList();
-        Document doc = Jsoup.connect(currentPlatformBuilds).get();
+        // the server redirects to the directory with a trailing slash, links are relative to that
+        String baseUri = currentPlatformBuilds.endsWith("/") ? currentPlatformBuilds : currentPlatformBuilds + "/";
+        Document doc = Jsoup.parse(listing, baseUri);
         
         Elements links = doc.select(("a[href]"));
         for (Element link : links) {
@@ -50,6 +72,8 @@ public class ExperimentalBuildsManager implements BuildsManager {
             builds.add(buildData);
         }
         
+        // newest first, so the first page holds the latest builds
+        builds.sort(Comparator.comparing(BuildData::getTimestamp).reversed());
         return builds.toArray(new BuildData[builds.size()]);
     }
     
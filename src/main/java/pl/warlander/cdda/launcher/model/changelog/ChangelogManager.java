@@ -1,18 +1,25 @@
 package pl.warlander.cdda.launcher.model.changelog;
 
+import java.io.File;
 import java.io.IOException;
+import pl.warlander.cdda.launcher.model.http.HttpCache;
 
 public interface ChangelogManager {
     
     public abstract void downloadChangelog() throws IOException;
-    public abstract String ParseChangelog();
+    public abstract int getEntryCount();
+    public abstract String ParseChangelog(int from, int to);
     
-    public static ChangelogManager createChangelogManager(boolean experimental) {
+    public default String ParseChangelog() {
+        return ParseChangelog(0, getEntryCount());
+    }
+    
+    public static ChangelogManager createChangelogManager(boolean experimental, HttpCache cache, File changelogDirectory) {
         if (experimental) {
-            return new ExperimentalChangelogManager();
+            return new ExperimentalChangelogManager(cache, changelogDirectory);
         }
         else {
-            return new StableChangelogManager();
+            return new StableChangelogManager(cache, changelogDirectory);
         }
     }
     
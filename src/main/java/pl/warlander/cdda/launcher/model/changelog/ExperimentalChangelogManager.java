@@ -1,50 +1,117 @@
 package pl.warlander.cdda.launcher.model.changelog;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import java.util.ArrayList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.warlander.cdda.launcher.model.http.HttpCache;
 import pl.warlander.cdda.launcher.utils.TimeUtils;
 
 public class ExperimentalChangelogManager implements ChangelogManager {
     
-    private static final String EXPERIMENTAL_BUILDS_CHANGELOG = "http://gorgon.narc.ro:8080/job/Cataclysm-Matrix/api/xml?tree=builds[number,timestamp,changeSet[items[msg]]]{0,45}";
+    private static final Logger logger = LoggerFactory.getLogger(ExperimentalChangelogManager.class);
     
-    private Document changelogDocument;
+    private static final String JENKINS_JOB_API = "http://gorgon.narc.ro:8080/job/Cataclysm-Matrix/api/xml";
+    private static final String LAST_BUILD_QUERY = "?tree=lastBuild[number]";
+    private static final String BUILDS_QUERY = "?tree=builds[number,timestamp,changeSet[items[msg]]]";
     
-    protected ExperimentalChangelogManager() {}
+    // fetched when nothing is stored yet, later refreshes only ask for the builds missing locally
+    private static final int INITIAL_BUILDS = 45;
+    private static final int STORED_BUILDS = 1000;
+    
+    private final HttpCache cache;
+    private final JenkinsChangelogStore store;
+    private JenkinsBuild[] builds;
+    
+    protected ExperimentalChangelogManager(HttpCache cache, File changelogDirectory) {
+        this.cache = cache;
+        this.store = new JenkinsChangelogStore(new File(changelogDirectory, "experimental.json"), STORED_BUILDS);
+    }
     
     public void downloadChangelog() throws IOException {
-        changelogDocument = Jsoup.connect(EXPERIMENTAL_BUILDS_CHANGELOG).get();
+        JenkinsBuild[] storedBuilds = store.load();
+        try {
+            int storedNumber = JenkinsChangelogStore.getHighestNumber(storedBuilds);
+            int lastNumber = fetchLastBuildNumber();
+            if (storedNumber >= lastNumber) {
+                builds = storedBuilds;
+                return;
+            }
+            
+            // build numbers only grow, so at most this many builds are newer than the stored ones
+            int missingBuilds = storedNumber > 0 ? Math.min(lastNumber - storedNumber, STORED_BUILDS) : INITIAL_BUILDS;
+            JenkinsBuild[] newBuilds = fetchBuilds(missingBuilds, storedNumber);
+            builds = store.merge(storedBuilds, newBuilds);
+        } catch (IOException ex) {
+            if (storedBuilds.length == 0) {
+                throw ex;
+            }
+            logger.warn("Unable to sync changelog, using " + storedBuilds.length + " stored builds: " + ex.getMessage());
+            builds = storedBuilds;
+        }
+    }
+    
+    public void loadBuilds(JenkinsBuild[] builds) {
+        this.builds = builds;
+    }
+    
+    private int fetchLastBuildNumber() throws IOException {
+        byte[] response = cache.fetch(new URL(JENKINS_JOB_API + LAST_BUILD_QUERY)).getBody();
+        return JenkinsChangelogParser.parseLastBuildNumber(new ByteArrayInputStream(response));
+    }
+    
+    private JenkinsBuild[] fetchBuilds(int count, int storedNumber) throws IOException {
+        byte[] response = cache.fetch(new URL(JENKINS_JOB_API + BUILDS_QUERY + "{0," + count + "}")).getBody();
+        ArrayList<JenkinsBuild> newBuilds = new ArrayList();
+        JenkinsChangelogParser.parseBuilds(new ByteArrayInputStream(response), (build) -> {
+            if (build.getNumber() > storedNumber) {
+                newBuilds.add(build);
+            }
+        });
+        return newBuilds.toArray(new JenkinsBuild[newBuilds.size()]);
+    }
+    
+    public int getEntryCount() {
+        if (builds == null) {
+            throw new IllegalStateException("Attempted parsing non-downloaded changelog");
+        }
+        
+        return builds.length;
     }
     
-    public String ParseChangelog() {
-        if (changelogDocument == null) {
+    public String ParseChangelog(int from, int to) {
+        if (builds == null) {
             throw new IllegalStateException("Attempted parsing non-downloaded changelog");
         }
         
         StringBuilder changelog = new StringBuilder();
-        Elements jenkinsBuilds = changelogDocument.getElementsByTag("build");
-        for (Element jenkinsBuild : jenkinsBuilds) {
-            String buildNumber = jenkinsBuild.getElementsByTag("number").html();
-            long buildTimestamp = Long.parseLong(jenkinsBuild.getElementsByTag("timestamp").html()) / 1000;
-            LocalDateTime time = LocalDateTime.ofEpochSecond(buildTimestamp, 0, ZoneOffset.UTC);
-            String timeToNowString = TimeUtils.timestampToNowString(time);
-
-            changelog.append("<p><b>").append(buildNumber).append(" (").append(timeToNowString).append(" - ").append(time.toString().replace("T", " ")).append(")</b></p>");
-
-            changelog.append("<ul>");
-            Elements buildChangelogLines = jenkinsBuild.getElementsByTag("msg");
-            for (Element buildChangelogLine : buildChangelogLines) {
-                changelog.append("<li>").append(buildChangelogLine.html()).append("</li>");
-            }
-            changelog.append("</ul>");
+        for (int i = from; i < Math.min(to, builds.length); i++) {
+            appendBuild(changelog, builds[i]);
         }
         
         return changelog.toString();
     }
     
+    public static void appendBuild(StringBuilder changelog, JenkinsBuild jenkinsBuild) {
+        LocalDateTime time = LocalDateTime.ofEpochSecond(jenkinsBuild.getTimestamp() / 1000, 0, ZoneOffset.UTC);
+        String timeToNowString = TimeUtils.timestampToNowString(time);
+
+        changelog.append("<p><b>").append(jenkinsBuild.getNumber()).append(" (").append(timeToNowString).append(" - ").append(time.toString().replace("T", " ")).append(")</b></p>");
+
+        changelog.append("<ul>");
+        for (String message : jenkinsBuild.getMessages()) {
+            changelog.append("<li>").append(escapeHtml(message)).append("</li>");
+        }
+        changelog.append("</ul>");
+    }
+    
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+    
 }
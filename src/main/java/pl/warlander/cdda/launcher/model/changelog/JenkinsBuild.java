@@ -0,0 +1,32 @@
+package pl.warlander.cdda.launcher.model.changelog;
+
+public class JenkinsBuild {
+    
+    private int number;
+    private long timestamp;
+    private String[] messages;
+    
+    // for Gson
+    private JenkinsBuild() {
+    
+    }
+    
+    public JenkinsBuild(int number, long timestamp, String[] messages) {
+        this.number = number;
+        this.timestamp = timestamp;
+        this.messages = messages;
+    }
+    
+    public int getNumber() {
+        return number;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public String[] getMessages() {
+        return messages;
+    }
+
+}
@@ -0,0 +1,99 @@
+package pl.warlander.cdda.launcher.model.changelog;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+public class JenkinsChangelogParser {
+    
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    
+    private JenkinsChangelogParser() {
+    
+    }
+    
+    // builds are handed to the consumer as soon as their closing tag is read, nothing else is kept
+    public static void parseBuilds(InputStream input, Consumer<JenkinsBuild> consumer) throws IOException {
+        try {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(input);
+            try {
+                int depth = 0;
+                int buildDepth = -1;
+                int number = 0;
+                long timestamp = 0;
+                ArrayList<String> messages = new ArrayList();
+                
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        String name = reader.getLocalName();
+                        if (buildDepth < 0) {
+                            if (name.equals("build")) {
+                                buildDepth = depth;
+                                number = 0;
+                                timestamp = 0;
+                                messages.clear();
+                            }
+                        }
+                        else if (depth == buildDepth + 1 && name.equals("number")) {
+                            number = Integer.parseInt(reader.getElementText().trim());
+                            depth--;
+                        }
+                        else if (depth == buildDepth + 1 && name.equals("timestamp")) {
+                            timestamp = Long.parseLong(reader.getElementText().trim());
+                            depth--;
+                        }
+                        else if (name.equals("msg")) {
+                            messages.add(reader.getElementText());
+                            depth--;
+                        }
+                    }
+                    else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (depth == buildDepth) {
+                            consumer.accept(new JenkinsBuild(number, timestamp, messages.toArray(new String[messages.size()])));
+                            buildDepth = -1;
+                        }
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | NumberFormatException ex) {
+            throw new IOException("Unable to parse Jenkins changelog", ex);
+        }
+    }
+    
+    public static int parseLastBuildNumber(InputStream input) throws IOException {
+        try {
+            XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(input);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && reader.getLocalName().equals("number")) {
+                        return Integer.parseInt(reader.getElementText().trim());
+                    }
+                }
+                return 0;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | NumberFormatException ex) {
+            throw new IOException("Unable to parse Jenkins build number", ex);
+        }
+    }
+    
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+}
@@ -0,0 +1,67 @@
+package pl.warlander.cdda.launcher.model.changelog;
+
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class JenkinsChangelogStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(JenkinsChangelogStore.class);
+    
+    private final File storeFile;
+    private final int maxBuilds;
+    
+    public JenkinsChangelogStore(File storeFile, int maxBuilds) {
+        this.storeFile = storeFile;
+        this.maxBuilds = maxBuilds;
+    }
+    
+    // newest build first
+    public synchronized JenkinsBuild[] load() {
+        if (!storeFile.exists()) {
+            return new JenkinsBuild[0];
+        }
+        
+        try (FileReader reader = new FileReader(storeFile)) {
+            JenkinsBuild[] builds = new Gson().fromJson(reader, JenkinsBuild[].class);
+            return builds != null ? builds : new JenkinsBuild[0];
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Unable to read changelog store, starting over", ex);
+            return new JenkinsBuild[0];
+        }
+    }
+    
+    public synchronized JenkinsBuild[] merge(JenkinsBuild[] storedBuilds, JenkinsBuild[] newBuilds) throws IOException {
+        TreeMap<Integer, JenkinsBuild> builds = new TreeMap(Comparator.reverseOrder());
+        for (JenkinsBuild build : storedBuilds) {
+            builds.put(build.getNumber(), build);
+        }
+        for (JenkinsBuild build : newBuilds) {
+            builds.put(build.getNumber(), build);
+        }
+        JenkinsBuild[] mergedBuilds = builds.values().stream().limit(maxBuilds).toArray(JenkinsBuild[]::new);
+        
+        Files.createDirectories(storeFile.getParentFile().toPath());
+        File temporaryFile = new File(storeFile.getPath() + ".tmp");
+        try (FileWriter writer = new FileWriter(temporaryFile)) {
+            new Gson().toJson(mergedBuilds, writer);
+        }
+        Files.move(temporaryFile.toPath(), storeFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Changelog store holds " + mergedBuilds.length + " builds, " + newBuilds.length + " fetched");
+        return mergedBuilds;
+    }
+    
+    public static int getHighestNumber(JenkinsBuild[] builds) {
+        return Arrays.stream(builds).mapToInt(JenkinsBuild::getNumber).max().orElse(0);
+    }
+
+}
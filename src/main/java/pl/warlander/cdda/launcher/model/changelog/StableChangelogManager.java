@@ -1,52 +1,132 @@
 package pl.warlander.cdda.launcher.model.changelog;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import java.io.File;
 import java.io.IOException;
-import java.net.URL;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import org.apache.commons.io.IOUtils;
+import java.util.HashSet;
+import java.util.Set;
 import org.commonmark.node.Node;
 import org.commonmark.parser.Parser;
 import org.commonmark.renderer.html.HtmlRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.warlander.cdda.launcher.model.github.GithubRelease;
+import pl.warlander.cdda.launcher.model.github.GithubReleases;
+import pl.warlander.cdda.launcher.model.http.HttpCache;
+import pl.warlander.cdda.launcher.utils.HashUtils;
 import pl.warlander.cdda.launcher.utils.TimeUtils;
 
 public class StableChangelogManager implements ChangelogManager {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StableChangelogManager.class);
+    
+    // both are immutable and safe to share between threads
+    private static final Parser MARKDOWN_PARSER = Parser.builder().build();
+    private static final HtmlRenderer HTML_RENDERER = HtmlRenderer.builder().build();
+    
+    private static final String RENDERED_EXTENSION = ".html";
 
-    private static final String CHANGELOGS_PATH = "https://api.github.com/repos/CleverRaven/Cataclysm-DDA/releases";
-    private JsonArray changelogsArray;
+    private final HttpCache cache;
+    private final File renderDirectory;
+    private GithubRelease[] releases;
+    
+    protected StableChangelogManager(HttpCache cache, File changelogDirectory) {
+        this.cache = cache;
+        this.renderDirectory = new File(changelogDirectory, "Stable");
+    }
     
     public void downloadChangelog() throws IOException {
-        String buildsJsonString = IOUtils.toString(new URL(CHANGELOGS_PATH), Charset.defaultCharset());
-        Gson gson = new Gson();
-        changelogsArray = gson.fromJson(buildsJsonString, JsonArray.class);
+        loadReleases(GithubReleases.fetchReleases(cache, 0));
+    }
+    
+    public void loadReleases(GithubRelease[] releases) {
+        this.releases = releases;
+        pruneRenderedChangelogs();
+    }
+    
+    // rendered notes of releases no longer listed, or edited since, would otherwise pile up forever
+    private void pruneRenderedChangelogs() {
+        // temp files may belong to a render in progress on another manager
+        File[] renderedFiles = renderDirectory.listFiles((directory, name) -> name.endsWith(RENDERED_EXTENSION));
+        if (renderedFiles == null) {
+            return;
+        }
+        
+        Set<String> currentFileNames = new HashSet();
+        for (GithubRelease release : releases) {
+            currentFileNames.add(getRenderedFileName(release.getTagName(), getBody(release)));
+        }
+        
+        int removed = 0;
+        for (File renderedFile : renderedFiles) {
+            if (!currentFileNames.contains(renderedFile.getName()) && renderedFile.delete()) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.info("Removed " + removed + " outdated rendered changelogs");
+        }
+    }
+    
+    public int getEntryCount() {
+        return releases.length;
     }
 
-    public String ParseChangelog() {
+    public String ParseChangelog(int from, int to) {
         StringBuilder changelog = new StringBuilder();
         
-        for (JsonElement build : changelogsArray) {
-            JsonObject buildObject = (JsonObject) build;
-            String name = buildObject.get("tag_name").getAsString();
-            String body = buildObject.get("body").getAsString();
-            String timestampString = buildObject.get("published_at").getAsString();
+        for (int i = from; i < Math.min(to, releases.length); i++) {
+            GithubRelease release = releases[i];
+            String name = release.getTagName();
+            String body = getBody(release);
+            String timestampString = release.getPublishedAt();
             DateTimeFormatter formatter = DateTimeFormatter.ISO_DATE_TIME;
             LocalDateTime timestamp = LocalDateTime.parse(timestampString, formatter);
             String timeToNowString = TimeUtils.timestampToNowString(timestamp);
             
             changelog.append("<p><b>").append(name).append(" (").append(timeToNowString).append(" - ").append(timestamp.toString().replace("T", " ")).append(")</b></p>");
-            Parser parser = Parser.builder().build();
-            Node document = parser.parse(body);
-            HtmlRenderer renderer = HtmlRenderer.builder().build();
-            String renderedMarkdown = renderer.render(document);
-            changelog.append(renderedMarkdown);
+            changelog.append(renderMarkdown(name, body));
         }
         
         return changelog.toString();
     }
     
+    private String getBody(GithubRelease release) {
+        return release.getBody() != null ? release.getBody() : "";
+    }
+    
+    // keyed by content as well, so edited release notes are rendered again
+    private String getRenderedFileName(String name, String body) {
+        byte[] key = (name + "\n" + body).getBytes(StandardCharsets.UTF_8);
+        return HashUtils.sha256(key, key.length) + RENDERED_EXTENSION;
+    }
+    
+    private String renderMarkdown(String name, String body) {
+        Path renderedFile = renderDirectory.toPath().resolve(getRenderedFileName(name, body));
+        if (Files.isRegularFile(renderedFile)) {
+            try {
+                return new String(Files.readAllBytes(renderedFile), StandardCharsets.UTF_8);
+            } catch (IOException ex) {
+                logger.warn("Unable to read rendered changelog of " + name, ex);
+            }
+        }
+        
+        Node document = MARKDOWN_PARSER.parse(body);
+        String renderedMarkdown = HTML_RENDERER.render(document);
+        try {
+            Files.createDirectories(renderDirectory.toPath());
+            Path temporaryFile = Files.createTempFile(renderDirectory.toPath(), "render", ".tmp");
+            Files.write(temporaryFile, renderedMarkdown.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporaryFile, renderedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            logger.warn("Unable to cache rendered changelog of " + name, ex);
+        }
+        return renderedMarkdown;
+    }
+    
 }
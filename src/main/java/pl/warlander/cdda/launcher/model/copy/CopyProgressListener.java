@@ -0,0 +1,7 @@
+package pl.warlander.cdda.launcher.model.copy;
+
+public interface CopyProgressListener {
+    
+    void onProgress(long files, long bytes);
+
+}
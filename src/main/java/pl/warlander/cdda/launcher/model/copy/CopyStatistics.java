@@ -0,0 +1,36 @@
+package pl.warlander.cdda.launcher.model.copy;
+
+public class CopyStatistics {
+    
+    private final long files;
+    private final long bytes;
+    private final long durationMillis;
+    
+    public CopyStatistics(long files, long bytes, long durationMillis) {
+        this.files = files;
+        this.bytes = bytes;
+        this.durationMillis = durationMillis;
+    }
+    
+    public long getFiles() {
+        return files;
+    }
+    
+    public long getBytes() {
+        return bytes;
+    }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    public double getMegabytesPerSecond() {
+        return bytes / 1024d / 1024d / Math.max(durationMillis, 1) * 1000;
+    }
+    
+    public String toString() {
+        return files + " files, " + String.format("%.1f", bytes / 1024d / 1024d) + " MB in " + durationMillis + " ms ("
+                + String.format("%.1f", getMegabytesPerSecond()) + " MB/s)";
+    }
+
+}
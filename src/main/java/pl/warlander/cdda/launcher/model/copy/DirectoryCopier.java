@@ -0,0 +1,205 @@
+package pl.warlander.cdda.launcher.model.copy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class DirectoryCopier {
+    
+    public static final int DEFAULT_THREADS = 4;
+    
+    // below this size a plain Files.copy is cheaper than setting up channels
+    private static final long TRANSFER_THRESHOLD = 1024 * 1024;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    
+    private static final CopyProgressListener NO_PROGRESS = (files, bytes) -> {};
+    
+    private final int threads;
+    
+    public DirectoryCopier(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+    
+    public CopyStatistics copyDirectory(File source, File target) throws IOException {
+        return copyDirectory(source, target, NO_PROGRESS);
+    }
+    
+    public CopyStatistics copyDirectory(File source, File target, CopyProgressListener listener) throws IOException {
+        return run(source.toPath(), target.toPath(), false, listener);
+    }
+    
+    public CopyStatistics linkDirectory(File source, File target) throws IOException {
+        return linkDirectory(source, target, NO_PROGRESS);
+    }
+    
+    public CopyStatistics linkDirectory(File source, File target, CopyProgressListener listener) throws IOException {
+        return run(source.toPath(), target.toPath(), true, listener);
+    }
+    
+    private CopyStatistics run(Path source, Path target, boolean link, CopyProgressListener listener) throws IOException {
+        if (!Files.isDirectory(source)) {
+            throw new IOException("Source '" + source + "' is not a directory");
+        }
+        
+        CopyOperation operation = new CopyOperation(link, listener);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new DirectoryTask(operation, source, target));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        } catch (RuntimeException ex) {
+            // fork/join may rethrow a copy of the original exception, wrapping it as the cause
+            if (ex.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) ex.getCause()).getCause();
+            }
+            throw ex;
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        listener.onProgress(operation.files.get(), operation.bytes.get());
+        return new CopyStatistics(operation.files.get(), operation.bytes.get(), System.currentTimeMillis() - operation.startTime);
+    }
+    
+    private static class CopyOperation {
+        
+        private final boolean link;
+        private final CopyProgressListener listener;
+        private final long startTime;
+        
+        private final AtomicLong files;
+        private final AtomicLong bytes;
+        private final AtomicLong lastProgress;
+        
+        private CopyOperation(boolean link, CopyProgressListener listener) {
+            this.link = link;
+            this.listener = listener;
+            this.startTime = System.currentTimeMillis();
+            this.files = new AtomicLong();
+            this.bytes = new AtomicLong();
+            this.lastProgress = new AtomicLong(System.nanoTime());
+        }
+        
+        private void recordFile(long size) {
+            long copiedFiles = files.incrementAndGet();
+            long copiedBytes = bytes.addAndGet(size);
+            
+            long now = System.nanoTime();
+            long last = lastProgress.get();
+            // only one worker per interval gets to report
+            if (now - last >= PROGRESS_INTERVAL_NANOS && lastProgress.compareAndSet(last, now)) {
+                listener.onProgress(copiedFiles, copiedBytes);
+            }
+        }
+    
+    }
+    
+    private static class DirectoryTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final CopyOperation operation;
+        private final Path source;
+        private final Path target;
+        
+        private DirectoryTask(CopyOperation operation, Path source, Path target) {
+            this.operation = operation;
+            this.source = source;
+            this.target = target;
+        }
+        
+        protected void compute() {
+            try {
+                Files.createDirectories(target);
+                
+                ArrayList<RecursiveAction> tasks = new ArrayList();
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(source)) {
+                    for (Path child : children) {
+                        BasicFileAttributes attributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        Path childTarget = target.resolve(child.getFileName().toString());
+                        if (attributes.isDirectory()) {
+                            tasks.add(new DirectoryTask(operation, child, childTarget));
+                        } else {
+                            tasks.add(new FileTask(operation, child, childTarget, attributes));
+                        }
+                    }
+                }
+                invokeAll(tasks);
+                
+                // set last, creating children would bump it again
+                Files.setLastModifiedTime(target, Files.getLastModifiedTime(source));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    
+    }
+    
+    private static class FileTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private final CopyOperation operation;
+        private final Path source;
+        private final Path target;
+        private final BasicFileAttributes attributes;
+        
+        private FileTask(CopyOperation operation, Path source, Path target, BasicFileAttributes attributes) {
+            this.operation = operation;
+            this.source = source;
+            this.target = target;
+            this.attributes = attributes;
+        }
+        
+        protected void compute() {
+            try {
+                if (operation.link && attributes.isRegularFile()) {
+                    Files.deleteIfExists(target);
+                    Files.createLink(target, source);
+                } else if (attributes.isRegularFile() && attributes.size() >= TRANSFER_THRESHOLD) {
+                    transfer();
+                } else {
+                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+                }
+                operation.recordFile(attributes.size());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        
+        private void transfer() throws IOException {
+            try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ);
+                    FileChannel output = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = input.size();
+                long position = 0;
+                while (position < size) {
+                    position += input.transferTo(position, size - position, output);
+                }
+            }
+            
+            PosixFileAttributeView posixView = Files.getFileAttributeView(source, PosixFileAttributeView.class);
+            if (posixView != null) {
+                PosixFileAttributes posixAttributes = posixView.readAttributes();
+                Files.setPosixFilePermissions(target, posixAttributes.permissions());
+            }
+            Files.setLastModifiedTime(target, attributes.lastModifiedTime());
+        }
+    
+    }
+
+}
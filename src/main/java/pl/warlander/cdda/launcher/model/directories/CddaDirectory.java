@@ -1,21 +1,9 @@
 package pl.warlander.cdda.launcher.model.directories;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 import java.io.File;
-import java.io.IOException;
-import java.nio.charset.Charset;
-import java.util.ArrayList;
-import org.apache.commons.io.FileUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class CddaDirectory {
     
-    private static final Logger logger = LoggerFactory.getLogger(CddaDirectory.class);
-    
     private final File root;
     
     public CddaDirectory(File root) {
@@ -29,29 +17,11 @@ public class CddaDirectory {
             return new GameModInfo[0];
         }
         
-        ArrayList<GameModInfo> mods = new ArrayList();
-        for (File modDirectory : modsDirectory.listFiles()) {
-            File modInfoFile = new File(modDirectory, "modinfo.json");
-            if (!modInfoFile.exists()) {
-                continue;
-            }
-            
-            Gson gson = new Gson();
-            try {
-                String modInfoString = FileUtils.readFileToString(modInfoFile, Charset.defaultCharset());
-                JsonArray modInfoArray = gson.fromJson(modInfoString, JsonArray.class);
-                JsonObject modInfoObject = modInfoArray.get(0).getAsJsonObject();
-                String name = modInfoObject.get("name").getAsString();
-                JsonElement categoryElement = modInfoObject.get("category");
-                String category = categoryElement == null ? "no category" : categoryElement.getAsString();
-                String description = modInfoObject.get("description").getAsString();
-                mods.add(new GameModInfo(modDirectory, name, category, description));
-            } catch (IOException ex) {
-                logger.error("Unable to read mod info", ex);
-            }
-        }
-        
-        return mods.toArray(GameModInfo[]::new);
+        return new ModInfoScanner().scanModsDirectory(modsDirectory);
+    }
+    
+    public GameModInfo[] findMods(ModIndex index) {
+        return index.findMods(this);
     }
     
     public boolean isValid() {
@@ -113,6 +83,11 @@ public class CddaDirectory {
         return new File(root, "graveyard");
     }
     
+    // player data lives inside the install folder and is carried over between builds
+    public File[] getUserDataDirectories() {
+        return new File[] {getMemorialDirectory(), getGraveyardDirectory(), getTemplatesDirectory(), getConfigDirectory(), getSavesDirectory()};
+    }
+    
     public String getName() {
         return root.getName();
     }
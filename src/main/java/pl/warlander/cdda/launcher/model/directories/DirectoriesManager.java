@@ -5,27 +5,45 @@ import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import org.apache.commons.compress.archivers.ArchiveEntry;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.compress.archivers.ArchiveException;
-import org.apache.commons.compress.archivers.ArchiveInputStream;
-import org.apache.commons.compress.archivers.ArchiveStreamFactory;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import pl.warlander.cdda.launcher.model.builds.BuildData;
+import pl.warlander.cdda.launcher.model.copy.CopyStatistics;
+import pl.warlander.cdda.launcher.model.copy.DirectoryCopier;
 import pl.warlander.cdda.launcher.model.database.DatabaseFileLocation;
 import pl.warlander.cdda.launcher.model.database.DatabaseLocations;
+import pl.warlander.cdda.launcher.model.download.ArchiveCache;
+import pl.warlander.cdda.launcher.model.download.SegmentedDownload;
+import pl.warlander.cdda.launcher.model.extraction.ArchiveExtractor;
+import pl.warlander.cdda.launcher.model.extraction.ExtractionStatistics;
+import pl.warlander.cdda.launcher.model.extraction.ExtractionTarget;
+import pl.warlander.cdda.launcher.model.extraction.StreamingArchiveExtractor;
+import pl.warlander.cdda.launcher.model.http.HttpCache;
+import pl.warlander.cdda.launcher.model.install.InstallManifest;
+import pl.warlander.cdda.launcher.model.install.InstallManifestEntry;
+import pl.warlander.cdda.launcher.model.install.InstallManifestFormat;
+import pl.warlander.cdda.launcher.model.install.InstallVerification;
+import pl.warlander.cdda.launcher.model.install.InstallVerifier;
+import pl.warlander.cdda.launcher.model.install.RepairExtractionTarget;
+import pl.warlander.cdda.launcher.model.store.BuildStore;
+import pl.warlander.cdda.launcher.model.store.StoreExtractionTarget;
+import pl.warlander.cdda.launcher.utils.HashUtils;
 
 public class DirectoriesManager {
 
@@ -33,14 +51,32 @@ public class DirectoriesManager {
     
     private static final String OLD_BACKUP_STRING = "BackupOld";
     private static final String BACKUP_STRING = "Backup";
+    private static final String SNAPSHOTS_DIRECTORY = "Snapshots";
+    private static final String DOWNLOAD_STATE_EXTENSION = ".state";
+    private static final long STALE_DOWNLOAD_MILLIS = 7L * 24 * 60 * 60 * 1000;
     
     private final File rootDirectory;
     
     private final File propertiesFile;
     private LauncherProperties launcherProperties;
     private final File modsFile;
+    private final ModIndex modIndex;
     
     private final File gameDirectory;
+    private final GameDirectoryWatcher gameDirectoryWatcher;
+    private volatile GameDirectories gameDirectories;
+    private long gameDirectoriesVersion;
+    private final SnapshotStore snapshotStore;
+    private final Object backupLock;
+    private final File restoreDirectory;
+    private final BuildStore buildStore;
+    private final File downloadsDirectory;
+    private final Set<File> reservedDownloadFiles;
+    private final File archiveCacheDirectory;
+    private ArchiveCache archiveCache;
+    private final File httpCacheDirectory;
+    private final File changelogDirectory;
+    private HttpCache httpCache;
     
     private final File databaseDirectory;
     private final URL defaultDatabaseLocationsUrl;
@@ -48,11 +84,26 @@ public class DirectoriesManager {
     private DatabaseLocations databaseLocations;
 
     public DirectoriesManager() {
-        rootDirectory = new File("CDDA CC");
+        this(new File("CDDA CC"));
+    }
+    
+    public DirectoriesManager(File rootDirectory) {
+        this.rootDirectory = rootDirectory;
         gameDirectory = new File(rootDirectory, "Game");
+        gameDirectoryWatcher = new GameDirectoryWatcher(gameDirectory, this::invalidateGameDirectories);
+        snapshotStore = new SnapshotStore(new File(gameDirectory, SNAPSHOTS_DIRECTORY));
+        backupLock = new Object();
+        restoreDirectory = new File(rootDirectory, "Restore");
+        buildStore = new BuildStore(new File(rootDirectory, "Store"));
+        downloadsDirectory = new File(rootDirectory, "Downloads");
+        reservedDownloadFiles = ConcurrentHashMap.newKeySet();
+        archiveCacheDirectory = new File(rootDirectory, "Archives");
+        httpCacheDirectory = new File(rootDirectory, "HttpCache");
+        changelogDirectory = new File(rootDirectory, "Changelog");
         databaseDirectory = new File(rootDirectory, "Database");
         propertiesFile = new File(rootDirectory, "properties.json");
         modsFile = new File(rootDirectory, "mods.json");
+        modIndex = new ModIndex(new File(rootDirectory, "modIndex.json"));
         databaseLocationsFile = new File(databaseDirectory, "databaseLocations.json");
         defaultDatabaseLocationsUrl = getClass().getResource("/database/databaseLocations.json");
     }
@@ -76,41 +127,78 @@ public class DirectoriesManager {
         loadProperties();
         saveProperties();
         
+        httpCache = new HttpCache(httpCacheDirectory, launcherProperties.httpCacheMegabytes * 1024L * 1024L);
+        archiveCache = new ArchiveCache(archiveCacheDirectory, launcherProperties.archiveCacheMegabytes * 1024L * 1024L);
+        cleanupDownloads();
+        gameDirectoryWatcher.start();
+        
         reloadDatabase();
     }
     
     public CddaDirectory findOldBackupDirectory() {
-        File[] files = gameDirectory.listFiles();
-        for (File file : files) {
-            if (file.isDirectory() && file.getName().endsWith(OLD_BACKUP_STRING)) {
-                return new CddaDirectory(file);
-            }
-        }
-        
-        return null;
+        return getGameDirectories().getOldBackupDirectory();
     }
     
     public CddaDirectory findBackupDirectory() {
-        File[] files = gameDirectory.listFiles();
-        for (File file : files) {
-            if (file.isDirectory() && file.getName().endsWith(BACKUP_STRING)) {
-                return new CddaDirectory(file);
-            }
+        return getGameDirectories().getBackupDirectory();
+    }
+    
+    public CddaDirectory findCurrentGameDirectory() {
+        return getGameDirectories().getCurrentGameDirectory();
+    }
+    
+    public GameDirectories getGameDirectories() {
+        GameDirectories directories = gameDirectories;
+        if (directories != null) {
+            return directories;
         }
         
-        return null;
+        long version = getGameDirectoriesVersion();
+        directories = scanGameDirectories();
+        cacheGameDirectories(directories, version);
+        return directories;
     }
     
-    public CddaDirectory findCurrentGameDirectory() {
+    public synchronized void invalidateGameDirectories() {
+        gameDirectoriesVersion++;
+        gameDirectories = null;
+    }
+    
+    private synchronized long getGameDirectoriesVersion() {
+        return gameDirectoriesVersion;
+    }
+    
+    private synchronized void cacheGameDirectories(GameDirectories directories, long version) {
+        // without a watcher nothing would ever invalidate the state, and a change seen mid-scan makes it stale already
+        if (gameDirectoryWatcher.isActive() && gameDirectoriesVersion == version) {
+            gameDirectories = directories;
+        }
+    }
+    
+    private GameDirectories scanGameDirectories() {
+        CddaDirectory currentGameDirectory = null;
+        CddaDirectory backupDirectory = null;
+        CddaDirectory oldBackupDirectory = null;
+        
         File[] files = gameDirectory.listFiles();
-        for (File file : files) {
-            String fileName = file.getName();
-            if (file.isDirectory() && !fileName.endsWith(BACKUP_STRING) && !fileName.endsWith(OLD_BACKUP_STRING)) {
-                return new CddaDirectory(file);
+        if (files != null) {
+            for (File file : files) {
+                if (!file.isDirectory()) {
+                    continue;
+                }
+                
+                String fileName = file.getName();
+                if (fileName.endsWith(OLD_BACKUP_STRING)) {
+                    oldBackupDirectory = oldBackupDirectory == null ? new CddaDirectory(file) : oldBackupDirectory;
+                } else if (fileName.endsWith(BACKUP_STRING)) {
+                    backupDirectory = backupDirectory == null ? new CddaDirectory(file) : backupDirectory;
+                } else if (!fileName.equals(SNAPSHOTS_DIRECTORY)) {
+                    currentGameDirectory = currentGameDirectory == null ? new CddaDirectory(file) : currentGameDirectory;
+                }
             }
         }
         
-        return null;
+        return new GameDirectories(currentGameDirectory, backupDirectory, oldBackupDirectory, snapshotStore.findSnapshots());
     }
     
     public void updateDatabase() {
@@ -121,7 +209,7 @@ public class DirectoriesManager {
         }
         
         try {
-            FileUtils.copyURLToFile(resourceUrl, databaseLocationsFile, 1000, 1000);
+            httpCache.fetchToFile(resourceUrl, databaseLocationsFile);
             reloadDatabase();
             
             updateDatabases(databaseLocations.getMods());
@@ -138,7 +226,7 @@ public class DirectoriesManager {
             File databaseFile = new File(databaseDirectory, databaseLocation.getName());
             
             try {
-                FileUtils.copyURLToFile(databaseLocation.getResource().getAsURL(), databaseFile);
+                httpCache.fetchToFile(databaseLocation.getResource().getAsURL(), databaseFile);
             } catch (IOException ex) {
                 logger.error("Unable to copy " + databaseLocation.getName(), ex);
             }
@@ -185,32 +273,143 @@ public class DirectoriesManager {
         logger.info("Starting restoration process");
         CddaDirectory backupDirectory = findBackupDirectory();
         if (backupDirectory == null) {
+            CddaDirectory latestSnapshot = snapshotStore.findLatestSnapshot();
+            if (latestSnapshot != null) {
+                logger.info("No backup found, restoring latest snapshot instead");
+                return restoreSnapshot(latestSnapshot);
+            }
             logger.info("No backup found, aborting restoration");
             return false;
         }
         
-        CddaDirectory currentGameDirectory = findCurrentGameDirectory();
-        if (currentGameDirectory != null) {
-            logger.info("Existing game installation found, deleting");
-            try {
-                FileUtils.deleteDirectory(currentGameDirectory.getRoot());
-            } catch (IOException ex) {
-                logger.error("Unable to delete game installation", ex);
-                return false;
-            }
+        // saves were moved out of the backup during the update, the live install keeps them
+        File stagedDirectory = new File(restoreDirectory, backupDirectory.getName().replace(BACKUP_STRING, "").trim());
+        try {
+            FileUtils.deleteDirectory(restoreDirectory);
+            CopyStatistics statistics = createDirectoryCopier().copyDirectory(backupDirectory.getRoot(), stagedDirectory);
+            verifyRestoredBuild(stagedDirectory);
+            installRestoredBuild(stagedDirectory);
+            logger.info("Restored backup (" + statistics + ")");
+        } catch (IOException ex) {
+            logger.error("Unable to restore backup", ex);
+            return false;
+        } finally {
+            FileUtils.deleteQuietly(restoreDirectory);
+            invalidateGameDirectories();
         }
-        File newGameDirectory = new File(gameDirectory, backupDirectory.getName().replace(BACKUP_STRING, "").trim());
         
+        return true;
+    }
+    
+    public boolean restoreSnapshot(CddaDirectory snapshot) {
+        logger.info("Restoring snapshot " + snapshot.getName());
+        File stagedDirectory = new File(restoreDirectory, snapshotStore.getInstallName(snapshot));
         try {
-            FileUtils.copyDirectory(backupDirectory.getRoot(), newGameDirectory);
+            FileUtils.deleteDirectory(restoreDirectory);
+            snapshotStore.restoreSnapshot(snapshot, stagedDirectory, createDirectoryCopier());
+            verifyRestoredBuild(stagedDirectory);
+            installRestoredBuild(stagedDirectory);
         } catch (IOException ex) {
-            logger.error("Unable to restore backup", ex);
+            logger.error("Unable to restore snapshot", ex);
+            return false;
+        } finally {
+            FileUtils.deleteQuietly(restoreDirectory);
+            invalidateGameDirectories();
         }
         
         return true;
     }
     
+    // backups and snapshots share inodes with the build store and newer installs, a file edited in place there changed them too
+    private void verifyRestoredBuild(File stagedDirectory) throws IOException {
+        CddaDirectory restoredDirectory = new CddaDirectory(stagedDirectory);
+        InstallVerification verification = verifyInstall(restoredDirectory);
+        if (verification == null || verification.isIntact()) {
+            return;
+        }
+        
+        int damagedFiles = verification.getDamagedEntries().size();
+        logger.warn(damagedFiles + " files of restored build changed since it was backed up, repairing them");
+        if (!repairInstall(restoredDirectory, verification)) {
+            throw new IOException(damagedFiles + " files of restored build changed since it was backed up and can't be repaired");
+        }
+    }
+    
+    // restored build is moved into the live install folder, so player data never leaves it and a failure can't lose it
+    private void installRestoredBuild(File stagedDirectory) throws IOException {
+        File newGameDirectory = new File(gameDirectory, stagedDirectory.getName());
+        CddaDirectory currentGameDirectory = findCurrentGameDirectory();
+        if (currentGameDirectory == null) {
+            FileUtils.moveDirectory(stagedDirectory, newGameDirectory);
+            return;
+        }
+        
+        logger.info("Existing game installation found, replacing everything except player data");
+        List<File> userDataDirectories = Arrays.asList(currentGameDirectory.getUserDataDirectories());
+        for (File file : listFiles(currentGameDirectory.getRoot())) {
+            if (!userDataDirectories.contains(file)) {
+                FileUtils.forceDelete(file);
+            }
+        }
+        for (File file : listFiles(stagedDirectory)) {
+            File target = new File(currentGameDirectory.getRoot(), file.getName());
+            if (target.exists()) {
+                // player data of the live install is never older than what was restored
+                continue;
+            }
+            if (file.isDirectory()) {
+                FileUtils.moveDirectory(file, target);
+            } else {
+                FileUtils.moveFile(file, target);
+            }
+        }
+        
+        if (!currentGameDirectory.getRoot().equals(newGameDirectory) && !currentGameDirectory.getRoot().renameTo(newGameDirectory)) {
+            throw new IOException("Unable to rename game installation to " + newGameDirectory.getName());
+        }
+    }
+    
+    private File[] listFiles(File directory) throws IOException {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            throw new IOException("Unable to list files in " + directory);
+        }
+        return files;
+    }
+    
+    public CddaDirectory[] findSnapshots() {
+        return getGameDirectories().getSnapshots();
+    }
+    
+    public CddaDirectory snapshotBackup() {
+        synchronized (backupLock) {
+            CddaDirectory backupDirectory = findBackupDirectory();
+            if (backupDirectory == null) {
+                return null;
+            }
+            
+            logger.info("Creating snapshot of " + backupDirectory.getName());
+            String installName = backupDirectory.getName().replace(BACKUP_STRING, "").trim();
+            try {
+                return snapshotStore.createSnapshot(backupDirectory, installName, launcherProperties.snapshotGenerations);
+            } catch (IOException ex) {
+                logger.error("Unable to create snapshot", ex);
+                return null;
+            } finally {
+                // watcher doesn't look inside the snapshots folder
+                invalidateGameDirectories();
+            }
+        }
+    }
+    
     public CddaDirectory backupCurrentVersion() {
+        // snapshot still being taken of the previous backup has to finish before that backup goes away
+        synchronized (backupLock) {
+            return moveCurrentVersionToBackup();
+        }
+    }
+    
+    private CddaDirectory moveCurrentVersionToBackup() {
         logger.info("Starting backup process");
         CddaDirectory currentGameDirectory = findCurrentGameDirectory();
         if (currentGameDirectory == null || !currentGameDirectory.isValid()) {
@@ -229,10 +428,13 @@ public class DirectoriesManager {
                 } catch (IOException ex) {
                     logger.error("Unable to delete old backup", ex);
                     return null;
+                } finally {
+                    invalidateGameDirectories();
                 }
             }
             File newOldBackupDirectory = new File(gameDirectory, backupDirectory.getName().replace(BACKUP_STRING, OLD_BACKUP_STRING));
             boolean renamed = backupDirectory.getRoot().renameTo(newOldBackupDirectory);
+            invalidateGameDirectories();
             if (!renamed) {
                 logger.error("Unable to move backup to old backup directory");
                 return null;
@@ -242,6 +444,7 @@ public class DirectoriesManager {
         logger.info("Creating backup");
         File newBackupDirectory = new File(gameDirectory, currentGameDirectory.getName() + " " + BACKUP_STRING);
         boolean renamed = currentGameDirectory.getRoot().renameTo(newBackupDirectory);
+        invalidateGameDirectories();
         if (!renamed) {
             logger.error("Unable to move current game to backup directory");
             return null;
@@ -254,6 +457,8 @@ public class DirectoriesManager {
                 FileUtils.deleteDirectory(oldBackupDirectory.getRoot());
             } catch (IOException ex) {
                 logger.error("Unable to delete old backup", ex);
+            } finally {
+                invalidateGameDirectories();
             }
         }
         
@@ -261,32 +466,16 @@ public class DirectoriesManager {
     }
     
     public File extractAndInstallVersion(BuildData data, File archiveFile) {
+        File currentVersionFolder = getVersionFolder(data);
+        
         try {
-            BufferedInputStream bis = new BufferedInputStream(new FileInputStream(archiveFile));
-            ArchiveInputStream input = new ArchiveStreamFactory().createArchiveInputStream(bis);
-            
-            String buildString = data.getName() + " " + data.getGraphics();
-            File currentVersionFolder = new File(gameDirectory, buildString);
-            
             logger.info("Extracting " + data.getName());
-            ArchiveEntry entry;
-            while ((entry = input.getNextEntry()) != null) {
-                if (entry.isDirectory()){
-                    continue;
-                }
-                File curfile = new File(currentVersionFolder, entry.getName());
-                File parent = curfile.getParentFile();
-                if (!parent.exists()) {
-                    if (!parent.mkdirs()){
-                        logger.info("Could not create directory: " + parent.getPath());
-                        throw new RuntimeException("Could not create directory: " + parent.getPath());
-                    }
-                }
-                IOUtils.copy(input, new FileOutputStream(curfile));
-            }
-            
-            logger.info("Extracted " + data.getName());
-            input.close();
+            ArchiveExtractor extractor = ArchiveExtractor.createArchiveExtractor(archiveFile);
+            ExtractionTarget target = createExtractionTarget(currentVersionFolder);
+            ExtractionStatistics statistics = extractor.extract(archiveFile, target);
+            logger.info("Extracted " + data.getName() + " (" + statistics + ")");
+            writeInstallManifest(target, data);
+            cleanupBuildStore();
             return currentVersionFolder;
         } catch (IOException ex) {
             logger.error("Unable to extract " + data.getName(), ex);
@@ -294,9 +483,211 @@ public class DirectoriesManager {
         } catch (ArchiveException ex) {
             logger.error("Unable to determine compression used in downloaded archive", ex);
             return null;
+        } finally {
+            invalidateGameDirectories();
         }
     }
 
+    public File streamAndInstallVersion(BuildData data, SegmentedDownload download, InputStream archiveInput) {
+        File currentVersionFolder = getVersionFolder(data);
+        
+        try {
+            logger.info("Extracting " + data.getName() + " while downloading");
+            StreamingArchiveExtractor extractor = new StreamingArchiveExtractor(ArchiveExtractor.DEFAULT_THREADS);
+            ExtractionTarget target = createExtractionTarget(currentVersionFolder);
+            ExtractionStatistics statistics = extractor.extract(archiveInput, target, download);
+            logger.info("Extracted " + data.getName() + " (" + statistics + ")");
+            writeInstallManifest(target, data);
+            cleanupBuildStore();
+            return currentVersionFolder;
+        } catch (IOException ex) {
+            logger.error("Unable to extract " + data.getName(), ex);
+            FileUtils.deleteQuietly(currentVersionFolder);
+            return null;
+        } catch (ArchiveException ex) {
+            logger.error("Unable to determine compression used in downloaded archive", ex);
+            FileUtils.deleteQuietly(currentVersionFolder);
+            return null;
+        } finally {
+            invalidateGameDirectories();
+        }
+    }
+    
+    public DirectoryCopier createDirectoryCopier() {
+        return new DirectoryCopier(launcherProperties.copyThreads);
+    }
+    
+    private ExtractionTarget createExtractionTarget(File versionFolder) throws IOException {
+        if (launcherProperties.useBuildStore) {
+            return new StoreExtractionTarget(versionFolder, buildStore, versionFolder.getName());
+        }
+        return new ExtractionTarget(versionFolder);
+    }
+    
+    private void writeInstallManifest(ExtractionTarget target, BuildData data) {
+        InstallManifest manifest = target.createInstallManifest(data.getName(), data.getDownloadLink());
+        try {
+            InstallManifestFormat.write(manifest, InstallManifest.getManifestFile(target.getRoot()));
+        } catch (IOException ex) {
+            logger.error("Unable to write install manifest", ex);
+        }
+    }
+    
+    public InstallManifest loadInstallManifest(CddaDirectory directory) {
+        return InstallManifestFormat.tryRead(directory.getRoot());
+    }
+    
+    public InstallVerification verifyInstall(CddaDirectory directory) {
+        InstallManifest manifest = loadInstallManifest(directory);
+        if (manifest == null) {
+            logger.info("No install manifest found in " + directory.getName() + ", unable to verify");
+            return null;
+        }
+        
+        try {
+            InstallVerification verification = new InstallVerifier(ArchiveExtractor.DEFAULT_THREADS).verify(directory.getRoot(), manifest);
+            logger.info("Verified " + directory.getName() + " (" + verification + ")");
+            return verification;
+        } catch (IOException ex) {
+            logger.error("Unable to verify " + directory.getName(), ex);
+            return null;
+        }
+    }
+    
+    public boolean repairInstall(CddaDirectory directory, InstallVerification verification) {
+        InstallManifest manifest = loadInstallManifest(directory);
+        File archiveFile = manifest != null ? findInstallArchive(manifest) : null;
+        if (archiveFile == null) {
+            logger.info("No downloaded archive of " + directory.getName() + " kept, unable to repair");
+            return false;
+        }
+        
+        List<InstallManifestEntry> damagedEntries = verification.getDamagedEntries();
+        try {
+            logger.info("Repairing " + damagedEntries.size() + " files of " + directory.getName() + " from " + archiveFile.getName());
+            RepairExtractionTarget target = new RepairExtractionTarget(directory.getRoot(), damagedEntries);
+            ExtractionStatistics statistics = ArchiveExtractor.createArchiveExtractor(archiveFile).extract(archiveFile, target);
+            logger.info("Repaired " + directory.getName() + " (" + statistics + ")");
+            
+            // repaired files were hashed while written, so the archive is checked against the manifest for free
+            HashMap<String, InstallManifestEntry> repairedEntries = new HashMap();
+            for (InstallManifestEntry entry : target.createInstallManifest(manifest.getBuildName(), manifest.getSourceUrl()).getEntries()) {
+                repairedEntries.put(entry.getPath(), entry);
+            }
+            for (InstallManifestEntry entry : damagedEntries) {
+                InstallManifestEntry repairedEntry = repairedEntries.get(entry.getPath());
+                if (repairedEntry == null || !Arrays.equals(repairedEntry.getHash(), entry.getHash())) {
+                    logger.warn("Archive " + archiveFile.getName() + " doesn't match the install manifest at " + entry.getPath());
+                    return false;
+                }
+            }
+            if (launcherProperties.useBuildStore) {
+                repairBuildStore(directory, damagedEntries);
+            }
+            return true;
+        } catch (IOException ex) {
+            logger.error("Unable to repair " + directory.getName(), ex);
+            return false;
+        } catch (ArchiveException ex) {
+            logger.error("Unable to determine compression used in downloaded archive", ex);
+            return false;
+        } finally {
+            invalidateGameDirectories();
+        }
+    }
+    
+    public File findInstallArchive(InstallManifest manifest) {
+        if (manifest.getSourceUrl() == null) {
+            return null;
+        }
+        return archiveCache.find(manifest.getSourceUrl());
+    }
+    
+    public boolean hasCachedArchive(BuildData data) {
+        return archiveCache.contains(data.getDownloadLink());
+    }
+    
+    public File findCachedArchive(BuildData data) {
+        return archiveCache.find(data.getDownloadLink());
+    }
+    
+    public void cacheArchive(BuildData data, File archiveFile, String hash) {
+        archiveCache.store(data.getDownloadLink(), archiveFile, hash);
+    }
+    
+    private void cleanupDownloads() {
+        File[] files = downloadsDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        
+        // finished downloads are moved into the archive cache, anything else is either resumable or left behind
+        long staleTime = System.currentTimeMillis() - STALE_DOWNLOAD_MILLIS;
+        for (File file : files) {
+            String name = file.getName();
+            if (!file.isFile() || name.endsWith(DOWNLOAD_STATE_EXTENSION)) {
+                continue;
+            }
+            
+            File stateFile = new File(file.getPath() + DOWNLOAD_STATE_EXTENSION);
+            if (stateFile.exists() && stateFile.lastModified() > staleTime) {
+                continue;
+            }
+            logger.info("Deleting " + (stateFile.exists() ? "stale partial download " : "orphaned download file ") + name);
+            file.delete();
+            stateFile.delete();
+        }
+        
+        for (File stateFile : downloadsDirectory.listFiles((dir, name) -> name.endsWith(DOWNLOAD_STATE_EXTENSION))) {
+            String stateName = stateFile.getName();
+            if (!new File(downloadsDirectory, stateName.substring(0, stateName.length() - DOWNLOAD_STATE_EXTENSION.length())).exists()) {
+                stateFile.delete();
+            }
+        }
+    }
+    
+    private void repairBuildStore(CddaDirectory directory, List<InstallManifestEntry> repairedEntries) throws IOException {
+        buildStore.initialize();
+        int repairedBlobs = 0;
+        for (InstallManifestEntry entry : repairedEntries) {
+            Path repairedFile = directory.getRoot().toPath().resolve(entry.getPath());
+            if (buildStore.repairBlob(HashUtils.toHex(entry.getHash()), repairedFile)) {
+                repairedBlobs++;
+            }
+        }
+        buildStore.saveBlobStates();
+        logger.info("Replaced " + repairedBlobs + " damaged blobs in build store");
+    }
+    
+    private void cleanupBuildStore() {
+        if (launcherProperties.useBuildStore) {
+            buildStore.collectGarbage(launcherProperties.storedBuilds);
+        }
+    }
+    
+    // download file stays reserved until its install finishes, a second download of the same build would overwrite it mid-extraction
+    public File reserveDownloadFile(BuildData data) {
+        File downloadFile = getDownloadFile(data.getDownloadLink());
+        if (!reservedDownloadFiles.add(downloadFile)) {
+            return null;
+        }
+        return downloadFile;
+    }
+    
+    public void releaseDownloadFile(File downloadFile) {
+        reservedDownloadFiles.remove(downloadFile);
+    }
+    
+    private File getDownloadFile(String downloadLink) {
+        // same build always maps to the same file, so interrupted downloads can resume
+        return new File(downloadsDirectory, downloadLink.substring(downloadLink.lastIndexOf('/') + 1));
+    }
+    
+    private File getVersionFolder(BuildData data) {
+        String buildString = data.getName() + " " + data.getGraphics();
+        return new File(gameDirectory, buildString);
+    }
+
     public LauncherProperties loadProperties() {
         Gson gson = new Gson();
         try {
@@ -353,5 +744,17 @@ public class DirectoriesManager {
     public LauncherProperties getLauncherProperties() {
         return launcherProperties;
     }
+    
+    public ModIndex getModIndex() {
+        return modIndex;
+    }
+    
+    public HttpCache getHttpCache() {
+        return httpCache;
+    }
+    
+    public File getChangelogDirectory() {
+        return changelogDirectory;
+    }
 
 }
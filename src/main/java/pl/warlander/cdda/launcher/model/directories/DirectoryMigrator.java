@@ -0,0 +1,151 @@
+package pl.warlander.cdda.launcher.model.directories;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.warlander.cdda.launcher.model.copy.CopyProgressListener;
+import pl.warlander.cdda.launcher.model.copy.DirectoryCopier;
+
+public class DirectoryMigrator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryMigrator.class);
+    
+    private static final String STAGING_SUFFIX = ".migrating";
+    
+    private final MigrationMode preferredMode;
+    private final DirectoryCopier copier;
+    
+    public DirectoryMigrator(MigrationMode preferredMode, DirectoryCopier copier) {
+        this.preferredMode = preferredMode;
+        this.copier = copier;
+    }
+    
+    public MigrationMode migrate(File sourceDirectory, File targetDirectory, CopyProgressListener listener) throws IOException {
+        if (!sourceDirectory.isDirectory()) {
+            logger.info("Nothing to migrate from " + sourceDirectory.getName());
+            return null;
+        }
+        
+        long startTime = System.currentTimeMillis();
+        Path source = sourceDirectory.toPath();
+        Path target = targetDirectory.toPath();
+        Map<Path, Long> expectedFiles = listFiles(source);
+        
+        MigrationMode mode = transfer(selectMode(source, target), source, target, listener);
+        verify(expectedFiles, target);
+        
+        long bytes = expectedFiles.values().stream().mapToLong(Long::longValue).sum();
+        logger.info("Migrated " + sourceDirectory.getName() + " (" + mode + "): " + expectedFiles.size() + " files, "
+                + bytes / 1024 + " KB in " + (System.currentTimeMillis() - startTime) + " ms");
+        return mode;
+    }
+    
+    private MigrationMode selectMode(Path source, Path target) throws IOException {
+        if (preferredMode == MigrationMode.COPY) {
+            return MigrationMode.COPY;
+        }
+        // moves and links only stay cheap within one file system
+        Files.createDirectories(target.getParent());
+        if (!Files.getFileStore(source).equals(Files.getFileStore(target.getParent()))) {
+            return MigrationMode.COPY;
+        }
+        return preferredMode;
+    }
+    
+    private MigrationMode transfer(MigrationMode mode, Path source, Path target, CopyProgressListener listener) throws IOException {
+        if (mode == MigrationMode.MOVE) {
+            if (!Files.exists(target)) {
+                try {
+                    Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+                    return MigrationMode.MOVE;
+                } catch (AtomicMoveNotSupportedException ex) {
+                    logger.info("Atomic move not supported for " + source.getFileName() + ", copying instead");
+                }
+            }
+            // linked files would keep the backup in sync with every later write to the live saves
+            mode = MigrationMode.COPY;
+        }
+        
+        if (mode == MigrationMode.LINK) {
+            try {
+                // backup shares the files with the new install afterwards, snapshots keep their own copies
+                transferFiles(source, target, true, listener);
+                return MigrationMode.LINK;
+            } catch (IOException | UnsupportedOperationException ex) {
+                logger.info("Unable to link " + source.getFileName() + ", copying instead: " + ex);
+            }
+        }
+        
+        transferFiles(source, target, false, listener);
+        return MigrationMode.COPY;
+    }
+    
+    private void transferFiles(Path source, Path target, boolean link, CopyProgressListener listener) throws IOException {
+        // fresh targets are built next to their final location and appear in one rename
+        boolean staged = !Files.exists(target);
+        Path staging = target.resolveSibling(target.getFileName() + STAGING_SUFFIX);
+        FileUtils.deleteDirectory(staging.toFile());
+        Path destination = staged ? staging : target;
+        
+        try {
+            if (link) {
+                copier.linkDirectory(source.toFile(), destination.toFile(), listener);
+            } else {
+                copier.copyDirectory(source.toFile(), destination.toFile(), listener);
+            }
+        } catch (IOException | RuntimeException ex) {
+            if (staged) {
+                FileUtils.deleteQuietly(destination.toFile());
+            }
+            throw ex;
+        }
+        
+        if (staged) {
+            Files.move(destination, target, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+    
+    private Map<Path, Long> listFiles(Path root) throws IOException {
+        Map<Path, Long> files = new LinkedHashMap();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                files.put(root.relativize(file), attributes.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return files;
+    }
+    
+    private void verify(Map<Path, Long> expectedFiles, Path target) throws IOException {
+        int mismatchedFiles = 0;
+        for (Map.Entry<Path, Long> expectedFile : expectedFiles.entrySet()) {
+            try {
+                Path targetFile = target.resolve(expectedFile.getKey());
+                if (Files.readAttributes(targetFile, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).size() != expectedFile.getValue()) {
+                    mismatchedFiles++;
+                }
+            } catch (NoSuchFileException ex) {
+                mismatchedFiles++;
+            }
+        }
+        
+        if (mismatchedFiles > 0) {
+            throw new IOException("Migration of " + target.getFileName() + " incomplete, " + mismatchedFiles + " of "
+                    + expectedFiles.size() + " files missing or different");
+        }
+    }
+    
+}
@@ -0,0 +1,55 @@
+package pl.warlander.cdda.launcher.model.directories;
+
+import java.io.File;
+import pl.warlander.cdda.launcher.model.install.InstallManifest;
+import pl.warlander.cdda.launcher.model.install.InstallManifestFormat;
+
+public class GameDirectories {
+    
+    private final CddaDirectory currentGameDirectory;
+    private final File currentGameExecutable;
+    private final boolean currentGameValid;
+    private final InstallManifest currentGameManifest;
+    private final CddaDirectory backupDirectory;
+    private final CddaDirectory oldBackupDirectory;
+    private final CddaDirectory[] snapshots;
+    
+    public GameDirectories(CddaDirectory currentGameDirectory, CddaDirectory backupDirectory, CddaDirectory oldBackupDirectory, CddaDirectory[] snapshots) {
+        this.currentGameDirectory = currentGameDirectory;
+        this.currentGameExecutable = currentGameDirectory != null ? currentGameDirectory.getExecutable() : null;
+        this.currentGameValid = currentGameDirectory != null && currentGameDirectory.isValid();
+        this.currentGameManifest = currentGameDirectory != null ? InstallManifestFormat.tryRead(currentGameDirectory.getRoot()) : null;
+        this.backupDirectory = backupDirectory;
+        this.oldBackupDirectory = oldBackupDirectory;
+        this.snapshots = snapshots;
+    }
+    
+    public CddaDirectory getCurrentGameDirectory() {
+        return currentGameDirectory;
+    }
+    
+    public File getCurrentGameExecutable() {
+        return currentGameExecutable;
+    }
+    
+    public boolean isCurrentGameValid() {
+        return currentGameValid;
+    }
+    
+    public InstallManifest getCurrentGameManifest() {
+        return currentGameManifest;
+    }
+    
+    public CddaDirectory getBackupDirectory() {
+        return backupDirectory;
+    }
+    
+    public CddaDirectory getOldBackupDirectory() {
+        return oldBackupDirectory;
+    }
+    
+    public CddaDirectory[] getSnapshots() {
+        return snapshots;
+    }
+
+}
@@ -0,0 +1,86 @@
+package pl.warlander.cdda.launcher.model.directories;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class GameDirectoryWatcher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GameDirectoryWatcher.class);
+    
+    private final File gameDirectory;
+    private final Runnable changeListener;
+    
+    private volatile WatchService watchService;
+    
+    public GameDirectoryWatcher(File gameDirectory, Runnable changeListener) {
+        this.gameDirectory = gameDirectory;
+        this.changeListener = changeListener;
+    }
+    
+    public void start() {
+        if (watchService != null) {
+            return;
+        }
+        
+        // only the game directory itself is watched, handles on install folders would block renaming them on Windows
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            gameDirectory.toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchService = service;
+        } catch (IOException | UnsupportedOperationException ex) {
+            logger.error("Unable to watch game directory, its state will be read on every request", ex);
+            return;
+        }
+        
+        Thread thread = new Thread(this::processEvents, "Game directory watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    public boolean isActive() {
+        return watchService != null;
+    }
+    
+    public void stop() {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException ex) {
+                logger.error("Unable to close game directory watcher", ex);
+            }
+        }
+    }
+    
+    private void processEvents() {
+        WatchService service = watchService;
+        while (service != null) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException ex) {
+                return;
+            }
+            
+            // kind of the change doesn't matter, including overflows, every one of them invalidates the state
+            key.pollEvents();
+            boolean valid = key.reset();
+            changeListener.run();
+            if (!valid) {
+                logger.warn("Game directory is no longer watched");
+                stop();
+                return;
+            }
+        }
+    }
+
+}
@@ -1,10 +1,22 @@
 package pl.warlander.cdda.launcher.model.directories;
 
+import pl.warlander.cdda.launcher.model.copy.DirectoryCopier;
+import pl.warlander.cdda.launcher.model.download.SegmentedDownloader;
+
 public class LauncherProperties {
     
     public boolean useExperimentalBuilds = true;
     public boolean useTilesBuilds = true;
     public boolean updateDatabase = true;
+    public boolean streamingInstall = true;
+    public int snapshotGenerations = 5;
+    public boolean useBuildStore = true;
+    public int storedBuilds = 3;
+    public MigrationMode saveMigration = MigrationMode.MOVE;
+    public int copyThreads = DirectoryCopier.DEFAULT_THREADS;
+    public int downloadConnections = SegmentedDownloader.DEFAULT_CONNECTIONS;
+    public int httpCacheMegabytes = 32;
+    public int archiveCacheMegabytes = 1024;
     
     protected LauncherProperties() {
         
@@ -0,0 +1,7 @@
+package pl.warlander.cdda.launcher.model.directories;
+
+public enum MigrationMode {
+    
+    MOVE, LINK, COPY
+
+}
@@ -0,0 +1,145 @@
+package pl.warlander.cdda.launcher.model.directories;
+
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ModIndex {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ModIndex.class);
+    
+    private final File indexFile;
+    private final ModInfoScanner scanner;
+    private HashMap<String, ModIndexEntry> entries;
+    
+    public ModIndex(File indexFile) {
+        this.indexFile = indexFile;
+        this.scanner = new ModInfoScanner();
+    }
+    
+    public synchronized GameModInfo[] findMods(CddaDirectory directory) {
+        File modsDirectory = directory.getModsDirectory();
+        File[] modDirectories = modsDirectory.listFiles();
+        if (modDirectories == null) {
+            return new GameModInfo[0];
+        }
+        
+        loadEntries();
+        Arrays.sort(modDirectories, Comparator.comparing(File::getName));
+        HashSet<String> foundPaths = new HashSet();
+        ArrayList<File> changedDirectories = new ArrayList();
+        for (File modDirectory : modDirectories) {
+            File modInfoFile = new File(modDirectory, ModInfoScanner.MOD_INFO_FILE);
+            long lastModified = modInfoFile.lastModified();
+            if (lastModified == 0) {
+                continue;
+            }
+            
+            // unchanged modinfo.json is served from the index without being read
+            String path = modInfoFile.getAbsolutePath();
+            foundPaths.add(path);
+            ModIndexEntry entry = entries.get(path);
+            if (entry == null || !entry.matches(lastModified, modInfoFile.length())) {
+                changedDirectories.add(modDirectory);
+            }
+        }
+        
+        File[] scannedDirectories = changedDirectories.toArray(File[]::new);
+        GameModInfo[] scannedMods = scanner.scan(scannedDirectories);
+        for (int i = 0; i < scannedDirectories.length; i++) {
+            File modInfoFile = new File(scannedDirectories[i], ModInfoScanner.MOD_INFO_FILE);
+            String path = modInfoFile.getAbsolutePath();
+            entries.put(path, new ModIndexEntry(path, modInfoFile.lastModified(), modInfoFile.length(), scannedMods[i]));
+        }
+        
+        ArrayList<GameModInfo> mods = new ArrayList();
+        for (File modDirectory : modDirectories) {
+            ModIndexEntry entry = entries.get(new File(modDirectory, ModInfoScanner.MOD_INFO_FILE).getAbsolutePath());
+            if (entry != null && entry.isReadable()) {
+                mods.add(entry.toModInfo(modDirectory));
+            }
+        }
+        int parsedMods = scannedDirectories.length;
+        
+        String modsPath = modsDirectory.getAbsolutePath() + File.separator;
+        int removedMods = 0;
+        for (Iterator<String> iterator = entries.keySet().iterator(); iterator.hasNext();) {
+            String path = iterator.next();
+            if (path.startsWith(modsPath) && !foundPaths.contains(path)) {
+                iterator.remove();
+                removedMods++;
+            }
+        }
+        
+        if (parsedMods > 0 || removedMods > 0) {
+            logger.info("Mod index of " + directory.getName() + ": " + parsedMods + " mods parsed, " + removedMods + " removed, " + mods.size() + " mods found");
+            saveEntries();
+        }
+        return mods.toArray(GameModInfo[]::new);
+    }
+    
+    private void loadEntries() {
+        if (entries != null) {
+            return;
+        }
+        
+        entries = new HashMap();
+        if (!indexFile.exists()) {
+            return;
+        }
+        try (FileReader reader = new FileReader(indexFile)) {
+            ModIndexEntry[] storedEntries = new Gson().fromJson(reader, ModIndexEntry[].class);
+            if (storedEntries != null) {
+                for (ModIndexEntry entry : storedEntries) {
+                    entries.put(entry.getPath(), entry);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Unable to load mod index, rebuilding it", ex);
+        }
+        
+        int removedMods = removeMissingEntries();
+        if (removedMods > 0) {
+            logger.info("Mod index: " + removedMods + " mods of removed or renamed installs dropped");
+            saveEntries();
+        }
+    }
+    
+    // installs are renamed on every update, entries under their old paths would never be looked up again
+    private int removeMissingEntries() {
+        int removedMods = 0;
+        for (Iterator<String> iterator = entries.keySet().iterator(); iterator.hasNext();) {
+            if (!new File(iterator.next()).isFile()) {
+                iterator.remove();
+                removedMods++;
+            }
+        }
+        return removedMods;
+    }
+    
+    private void saveEntries() {
+        removeMissingEntries();
+        File temporaryFile = new File(indexFile.getPath() + ".tmp");
+        try {
+            try (FileWriter writer = new FileWriter(temporaryFile)) {
+                new Gson().toJson(entries.values().toArray(ModIndexEntry[]::new), writer);
+            }
+            Files.move(temporaryFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            logger.error("Unable to save mod index", ex);
+        }
+    }
+
+}
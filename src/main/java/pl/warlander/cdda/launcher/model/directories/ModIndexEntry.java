@@ -0,0 +1,47 @@
+package pl.warlander.cdda.launcher.model.directories;
+
+import java.io.File;
+
+public class ModIndexEntry {
+    
+    private String path;
+    private long lastModified;
+    private long size;
+    private String name;
+    private String category;
+    private String description;
+    
+    // for Gson
+    private ModIndexEntry() {
+    
+    }
+    
+    public ModIndexEntry(String path, long lastModified, long size, GameModInfo modInfo) {
+        this.path = path;
+        this.lastModified = lastModified;
+        this.size = size;
+        // unreadable mods are remembered too, so they are not parsed again until they change
+        if (modInfo != null) {
+            this.name = modInfo.getName();
+            this.category = modInfo.getCategory();
+            this.description = modInfo.getDescription();
+        }
+    }
+    
+    public String getPath() {
+        return path;
+    }
+    
+    public boolean isReadable() {
+        return name != null;
+    }
+    
+    public boolean matches(long lastModified, long size) {
+        return this.lastModified == lastModified && this.size == size;
+    }
+    
+    public GameModInfo toModInfo(File folder) {
+        return new GameModInfo(folder, name, category, description);
+    }
+
+}
@@ -0,0 +1,172 @@
+package pl.warlander.cdda.launcher.model.directories;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ModInfoScanner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ModInfoScanner.class);
+    
+    public static final String MOD_INFO_FILE = "modinfo.json";
+    
+    private static final String MOD_INFO_TYPE = "MOD_INFO";
+    private static final String DEFAULT_CATEGORY = "no category";
+    
+    private final int threads;
+    
+    public ModInfoScanner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    public ModInfoScanner(int threads) {
+        this.threads = Math.max(threads, 1);
+    }
+    
+    public GameModInfo[] scanModsDirectory(File modsDirectory) {
+        File[] modDirectories = modsDirectory.listFiles(file -> new File(file, MOD_INFO_FILE).isFile());
+        if (modDirectories == null) {
+            return new GameModInfo[0];
+        }
+        
+        Arrays.sort(modDirectories, Comparator.comparing(File::getName));
+        GameModInfo[] mods = scan(modDirectories);
+        return Arrays.stream(mods).filter(mod -> mod != null).toArray(GameModInfo[]::new);
+    }
+    
+    // result at each index belongs to the folder at the same index, null when its modinfo.json is unreadable
+    public GameModInfo[] scan(File[] modDirectories) {
+        GameModInfo[] mods = new GameModInfo[modDirectories.length];
+        int workerCount = Math.min(threads, modDirectories.length);
+        if (workerCount <= 1) {
+            for (int i = 0; i < modDirectories.length; i++) {
+                mods[i] = tryReadModInfo(modDirectories[i]);
+            }
+            return mods;
+        }
+        
+        ExecutorService workers = Executors.newFixedThreadPool(workerCount, (runnable) -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            ArrayList<Future<GameModInfo>> results = new ArrayList();
+            for (File modDirectory : modDirectories) {
+                results.add(workers.submit(() -> tryReadModInfo(modDirectory)));
+            }
+            
+            for (int i = 0; i < mods.length; i++) {
+                mods[i] = results.get(i).get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            logger.warn("Mod scan interrupted");
+        } catch (ExecutionException ex) {
+            logger.error("Unable to scan mods", ex.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        return mods;
+    }
+    
+    private GameModInfo tryReadModInfo(File modDirectory) {
+        try {
+            GameModInfo modInfo = readModInfo(modDirectory);
+            if (modInfo == null) {
+                logger.warn("No " + MOD_INFO_TYPE + " object found in mod " + modDirectory.getName());
+            }
+            return modInfo;
+        } catch (IOException | RuntimeException ex) {
+            // one broken mod should not hide every other mod
+            logger.warn("Unable to read mod info of " + modDirectory.getName() + ": " + ex.getMessage());
+            return null;
+        }
+    }
+    
+    public static GameModInfo readModInfo(File modDirectory) throws IOException {
+        File modInfoFile = new File(modDirectory, MOD_INFO_FILE);
+        try (JsonReader json = new JsonReader(Files.newBufferedReader(modInfoFile.toPath(), StandardCharsets.UTF_8))) {
+            json.setLenient(true);
+            if (json.peek() == JsonToken.BEGIN_OBJECT) {
+                return readModInfoObject(json, modDirectory);
+            }
+            
+            json.beginArray();
+            while (json.hasNext()) {
+                if (json.peek() != JsonToken.BEGIN_OBJECT) {
+                    json.skipValue();
+                    continue;
+                }
+                GameModInfo modInfo = readModInfoObject(json, modDirectory);
+                if (modInfo != null) {
+                    // rest of the file is never read
+                    return modInfo;
+                }
+            }
+            return null;
+        }
+    }
+    
+    private static GameModInfo readModInfoObject(JsonReader json, File modDirectory) throws IOException {
+        String type = null;
+        String name = null;
+        String category = null;
+        String description = null;
+        
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "type":
+                    type = nextString(json);
+                    break;
+                case "name":
+                    name = nextString(json);
+                    break;
+                case "category":
+                    category = nextString(json);
+                    break;
+                case "description":
+                    description = nextString(json);
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+        
+        if (!MOD_INFO_TYPE.equals(type)) {
+            return null;
+        }
+        if (name == null) {
+            throw new IOException("Mod info has no name");
+        }
+        return new GameModInfo(modDirectory, name, category != null ? category : DEFAULT_CATEGORY, description != null ? description : "");
+    }
+    
+    private static String nextString(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+        if (json.peek() != JsonToken.STRING) {
+            json.skipValue();
+            return null;
+        }
+        return json.nextString();
+    }
+
+}
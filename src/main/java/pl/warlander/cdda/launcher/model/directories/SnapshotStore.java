@@ -0,0 +1,203 @@
+package pl.warlander.cdda.launcher.model.directories;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.warlander.cdda.launcher.model.copy.CopyStatistics;
+import pl.warlander.cdda.launcher.model.copy.DirectoryCopier;
+import pl.warlander.cdda.launcher.model.install.InstallManifest;
+import pl.warlander.cdda.launcher.model.install.InstallManifestEntry;
+import pl.warlander.cdda.launcher.model.install.InstallManifestFormat;
+
+public class SnapshotStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+    
+    private static final String SNAPSHOT_TIMESTAMP_PATTERN = "yyyy-MM-dd HH-mm-ss";
+    private static final DateTimeFormatter SNAPSHOT_TIMESTAMP = DateTimeFormatter.ofPattern(SNAPSHOT_TIMESTAMP_PATTERN);
+    private static final String PARTIAL_SUFFIX = ".partial";
+    
+    private final File snapshotsDirectory;
+    
+    public SnapshotStore(File snapshotsDirectory) {
+        this.snapshotsDirectory = snapshotsDirectory;
+    }
+    
+    public CddaDirectory[] findSnapshots() {
+        File[] files = snapshotsDirectory.listFiles();
+        if (files == null) {
+            return new CddaDirectory[0];
+        }
+        
+        return Arrays.stream(files)
+                .filter(file -> file.isDirectory() && !file.getName().endsWith(PARTIAL_SUFFIX))
+                .sorted(Comparator.comparing(File::getName).reversed())
+                .map(CddaDirectory::new)
+                .toArray(CddaDirectory[]::new);
+    }
+    
+    public CddaDirectory findLatestSnapshot() {
+        CddaDirectory[] snapshots = findSnapshots();
+        return snapshots.length > 0 ? snapshots[0] : null;
+    }
+    
+    // source is a backup that is no longer played, so its files are linked instead of copied
+    // with the build store enabled they may still share inodes with newer installs, restoring verifies them against the install manifest
+    public CddaDirectory createSnapshot(CddaDirectory source, String installName, int generations) throws IOException {
+        snapshotsDirectory.mkdirs();
+        deletePartialSnapshots();
+        
+        String snapshotName = LocalDateTime.now().format(SNAPSHOT_TIMESTAMP) + " " + installName;
+        Path partialSnapshot = snapshotsDirectory.toPath().resolve(snapshotName + PARTIAL_SUFFIX);
+        CddaDirectory previousSnapshot = findLatestSnapshot();
+        
+        long startTime = System.currentTimeMillis();
+        SnapshotVisitor visitor = new SnapshotVisitor(source, partialSnapshot, previousSnapshot);
+        Files.walkFileTree(source.getRoot().toPath(), visitor);
+        
+        Path snapshot = snapshotsDirectory.toPath().resolve(snapshotName);
+        Files.move(partialSnapshot, snapshot, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Created snapshot " + snapshotName + " in " + (System.currentTimeMillis() - startTime) + " ms ("
+                + visitor.sharedFiles + " files shared with previous snapshot, " + visitor.linkedFiles + " files linked, "
+                + visitor.copiedFiles + " files copied)");
+        
+        pruneSnapshots(generations);
+        return new CddaDirectory(snapshot.toFile());
+    }
+    
+    public void restoreSnapshot(CddaDirectory snapshot, File targetDirectory, DirectoryCopier copier) throws IOException {
+        // snapshots share files between generations, so they are never handed out as links
+        CopyStatistics statistics = copier.copyDirectory(snapshot.getRoot(), targetDirectory);
+        logger.info("Restored snapshot " + snapshot.getName() + " (" + statistics + ")");
+    }
+    
+    public String getInstallName(CddaDirectory snapshot) {
+        // snapshot names are "<timestamp> <install name>"
+        return snapshot.getName().substring(SNAPSHOT_TIMESTAMP_PATTERN.length() + 1);
+    }
+    
+    private void pruneSnapshots(int generations) {
+        CddaDirectory[] snapshots = findSnapshots();
+        for (int i = Math.max(generations, 1); i < snapshots.length; i++) {
+            logger.info("Deleting old snapshot " + snapshots[i].getName());
+            try {
+                FileUtils.deleteDirectory(snapshots[i].getRoot());
+            } catch (IOException ex) {
+                logger.error("Unable to delete old snapshot", ex);
+            }
+        }
+    }
+    
+    private void deletePartialSnapshots() {
+        File[] files = snapshotsDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        
+        for (File file : files) {
+            if (file.getName().endsWith(PARTIAL_SUFFIX)) {
+                logger.warn("Deleting partial snapshot " + file.getName());
+                FileUtils.deleteQuietly(file);
+            }
+        }
+    }
+    
+    private static class SnapshotVisitor extends SimpleFileVisitor<Path> {
+        
+        private final Path source;
+        private final Path target;
+        private final Path previous;
+        private final Set<Path> userDataDirectories;
+        private final Set<String> unchangedFiles;
+        
+        private int sharedFiles;
+        private int linkedFiles;
+        private int copiedFiles;
+        
+        private SnapshotVisitor(CddaDirectory source, Path target, CddaDirectory previous) {
+            this.source = source.getRoot().toPath();
+            this.target = target;
+            this.previous = previous != null ? previous.getRoot().toPath() : null;
+            // saves change on every play session and stay with the live install, snapshots only hold the build
+            this.userDataDirectories = new HashSet();
+            for (File directory : source.getUserDataDirectories()) {
+                userDataDirectories.add(directory.toPath());
+            }
+            this.unchangedFiles = findUnchangedFiles(source, previous);
+        }
+        
+        // install manifests tell which files are unchanged since the previous snapshot without reading any of them
+        private static Set<String> findUnchangedFiles(CddaDirectory source, CddaDirectory previous) {
+            Set<String> unchangedFiles = new HashSet();
+            InstallManifest sourceManifest = InstallManifestFormat.tryRead(source.getRoot());
+            InstallManifest previousManifest = previous != null ? InstallManifestFormat.tryRead(previous.getRoot()) : null;
+            if (sourceManifest == null || previousManifest == null) {
+                return unchangedFiles;
+            }
+            
+            HashMap<String, InstallManifestEntry> previousEntries = new HashMap();
+            for (InstallManifestEntry entry : previousManifest.getEntries()) {
+                previousEntries.put(entry.getPath(), entry);
+            }
+            for (InstallManifestEntry entry : sourceManifest.getEntries()) {
+                InstallManifestEntry previousEntry = previousEntries.get(entry.getPath());
+                if (previousEntry != null && previousEntry.getSize() == entry.getSize() && Arrays.equals(previousEntry.getHash(), entry.getHash())) {
+                    unchangedFiles.add(entry.getPath());
+                }
+            }
+            return unchangedFiles;
+        }
+        
+        public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+            if (userDataDirectories.contains(directory)) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+            Files.createDirectories(target.resolve(source.relativize(directory)));
+            return FileVisitResult.CONTINUE;
+        }
+        
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+            Path relativePath = source.relativize(file);
+            Path targetFile = target.resolve(relativePath);
+            if (unchangedFiles.contains(relativePath.toString().replace(File.separatorChar, '/'))
+                    && tryLink(targetFile, previous.resolve(relativePath))) {
+                sharedFiles++;
+                return FileVisitResult.CONTINUE;
+            }
+            if (tryLink(targetFile, file)) {
+                linkedFiles++;
+                return FileVisitResult.CONTINUE;
+            }
+            
+            Files.copy(file, targetFile, StandardCopyOption.COPY_ATTRIBUTES);
+            copiedFiles++;
+            return FileVisitResult.CONTINUE;
+        }
+        
+        private boolean tryLink(Path link, Path existing) {
+            try {
+                Files.createLink(link, existing);
+                return true;
+            } catch (IOException | UnsupportedOperationException ex) {
+                return false;
+            }
+        }
+    
+    }
+
+}
@@ -0,0 +1,215 @@
+package pl.warlander.cdda.launcher.model.download;
+
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.warlander.cdda.launcher.utils.HashUtils;
+
+public class ArchiveCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveCache.class);
+    
+    private static final String ENTRY_EXTENSION = ".json";
+    private static final String ARCHIVE_EXTENSION = ".archive";
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    
+    private final File directory;
+    private final long maxBytes;
+    
+    // access ordered, so iteration starts at the least recently used archive
+    private final LinkedHashMap<String, CachedArchive> entries;
+    private long totalBytes;
+    
+    public ArchiveCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap(16, 0.75f, true);
+        loadEntries();
+    }
+    
+    public synchronized boolean contains(String url) {
+        CachedArchive entry = entries.get(getKey(url));
+        return entry != null && getArchiveFile(getKey(url)).length() == entry.getSize();
+    }
+    
+    // archive is hashed again before every use, a damaged one is dropped so the build gets downloaded instead
+    public File find(String url) {
+        String key = getKey(url);
+        CachedArchive entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            return null;
+        }
+        
+        File archiveFile = getArchiveFile(key);
+        try {
+            if (archiveFile.length() == entry.getSize() && hash(archiveFile).equals(entry.getHash())) {
+                synchronized (this) {
+                    entry.setLastUsed(System.currentTimeMillis());
+                    saveEntry(key, entry);
+                }
+                logger.info("Using cached archive of " + url);
+                return archiveFile;
+            }
+        } catch (IOException ex) {
+            logger.warn("Unable to read cached archive of " + url, ex);
+        }
+        
+        logger.warn("Cached archive of " + url + " is damaged, removing it");
+        remove(key);
+        return null;
+    }
+    
+    // archive file is moved into the cache, hash may be left out when it wasn't computed while downloading
+    public File store(String url, File archiveFile, String hash) {
+        long size = archiveFile.length();
+        if (size > maxBytes) {
+            logger.info("Archive of " + url + " exceeds the archive cache size, not caching it");
+            archiveFile.delete();
+            return null;
+        }
+        
+        String key = getKey(url);
+        File cachedFile = getArchiveFile(key);
+        try {
+            String archiveHash = hash != null ? hash : hash(archiveFile);
+            Files.createDirectories(directory.toPath());
+            synchronized (this) {
+                remove(key);
+                Files.move(archiveFile.toPath(), cachedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                CachedArchive entry = new CachedArchive(url, size, archiveHash, System.currentTimeMillis());
+                saveEntry(key, entry);
+                entries.put(key, entry);
+                totalBytes += size;
+                evict();
+            }
+            logger.info("Cached archive of " + url + " (" + totalBytes / 1024 / 1024 + " MB cached)");
+            return cachedFile;
+        } catch (IOException ex) {
+            logger.error("Unable to cache archive of " + url, ex);
+            archiveFile.delete();
+            return null;
+        }
+    }
+    
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    private synchronized void remove(String key) {
+        CachedArchive entry = entries.remove(key);
+        if (entry != null) {
+            totalBytes -= entry.getSize();
+        }
+        deleteFiles(key);
+    }
+    
+    private void evict() {
+        Iterator<Map.Entry<String, CachedArchive>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, CachedArchive> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue().getSize();
+            deleteFiles(eldest.getKey());
+            logger.info("Evicted archive of " + eldest.getValue().getUrl() + " from archive cache");
+        }
+    }
+    
+    private String hash(File archiveFile) throws IOException {
+        MessageDigest digest = HashUtils.createSha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream input = Files.newInputStream(archiveFile.toPath())) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HashUtils.toHex(digest.digest());
+    }
+    
+    private String getKey(String url) {
+        byte[] urlBytes = url.getBytes(StandardCharsets.UTF_8);
+        return HashUtils.sha256(urlBytes, urlBytes.length);
+    }
+    
+    private File getArchiveFile(String key) {
+        return new File(directory, key + ARCHIVE_EXTENSION);
+    }
+    
+    private void saveEntry(String key, CachedArchive entry) {
+        try (FileWriter writer = new FileWriter(new File(directory, key + ENTRY_EXTENSION))) {
+            new Gson().toJson(entry, writer);
+        } catch (IOException ex) {
+            logger.warn("Unable to save archive cache entry for " + entry.getUrl(), ex);
+        }
+    }
+    
+    private void deleteFiles(String key) {
+        new File(directory, key + ENTRY_EXTENSION).delete();
+        getArchiveFile(key).delete();
+    }
+    
+    private void loadEntries() {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+        
+        Gson gson = new Gson();
+        ArrayList<Map.Entry<String, CachedArchive>> loadedEntries = new ArrayList();
+        for (File file : files) {
+            String name = file.getName();
+            if (!name.endsWith(ENTRY_EXTENSION)) {
+                continue;
+            }
+            String key = name.substring(0, name.length() - ENTRY_EXTENSION.length());
+            try (FileReader reader = new FileReader(file)) {
+                CachedArchive entry = gson.fromJson(reader, CachedArchive.class);
+                if (entry != null && getArchiveFile(key).length() == entry.getSize()) {
+                    loadedEntries.add(Map.entry(key, entry));
+                    continue;
+                }
+            } catch (IOException | RuntimeException ex) {
+                logger.warn("Unable to read archive cache entry " + name, ex);
+            }
+            deleteFiles(key);
+        }
+        
+        loadedEntries.sort(Comparator.comparingLong(entry -> entry.getValue().getLastUsed()));
+        Set<String> knownFiles = new HashSet();
+        for (Map.Entry<String, CachedArchive> entry : loadedEntries) {
+            entries.put(entry.getKey(), entry.getValue());
+            totalBytes += entry.getValue().getSize();
+            knownFiles.add(entry.getKey() + ENTRY_EXTENSION);
+            knownFiles.add(entry.getKey() + ARCHIVE_EXTENSION);
+        }
+        
+        // archives moved in by an interrupted store never got their entry
+        for (File file : directory.listFiles()) {
+            if (!knownFiles.contains(file.getName())) {
+                logger.info("Deleting orphaned file " + file.getName() + " from archive cache");
+                file.delete();
+            }
+        }
+        evict();
+    }
+
+}
@@ -0,0 +1,42 @@
+package pl.warlander.cdda.launcher.model.download;
+
+public class CachedArchive {
+    
+    private String url;
+    private long size;
+    private String hash;
+    private long lastUsed;
+    
+    // for Gson
+    private CachedArchive() {
+    
+    }
+    
+    public CachedArchive(String url, long size, String hash, long lastUsed) {
+        this.url = url;
+        this.size = size;
+        this.hash = hash;
+        this.lastUsed = lastUsed;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public String getHash() {
+        return hash;
+    }
+    
+    public long getLastUsed() {
+        return lastUsed;
+    }
+    
+    public void setLastUsed(long lastUsed) {
+        this.lastUsed = lastUsed;
+    }
+
+}
@@ -0,0 +1,15 @@
+package pl.warlander.cdda.launcher.model.download;
+
+public interface DownloadListener {
+    
+    void onStart(String fileName, long size);
+    
+    void onUpdate(long downloaded, long size, double bytesPerSecond);
+    
+    void onComplete();
+    
+    void onCancel();
+    
+    void onError(Exception ex);
+
+}
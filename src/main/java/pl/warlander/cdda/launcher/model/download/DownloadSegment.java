@@ -0,0 +1,56 @@
+package pl.warlander.cdda.launcher.model.download;
+
+public class DownloadSegment {
+    
+    private long start;
+    private long end;
+    private volatile long downloaded;
+    
+    // for Gson
+    private DownloadSegment() {
+    
+    }
+    
+    public DownloadSegment(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+    
+    public long getStart() {
+        return start;
+    }
+    
+    public long getEnd() {
+        return end;
+    }
+    
+    public long getDownloaded() {
+        return downloaded;
+    }
+    
+    public long getPosition() {
+        return start + downloaded;
+    }
+    
+    public long getRemaining() {
+        return end < 0 ? Long.MAX_VALUE : end + 1 - getPosition();
+    }
+    
+    public boolean isComplete() {
+        return end >= 0 && getPosition() > end;
+    }
+    
+    void advance(long bytes) {
+        // every segment has exactly one writing thread
+        downloaded += bytes;
+    }
+    
+    void restart() {
+        downloaded = 0;
+    }
+    
+    void finish() {
+        end = getPosition() - 1;
+    }
+
+}
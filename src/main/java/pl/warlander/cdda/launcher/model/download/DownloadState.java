@@ -0,0 +1,80 @@
+package pl.warlander.cdda.launcher.model.download;
+
+import java.util.Objects;
+
+public class DownloadState {
+    
+    private String url;
+    private long size;
+    private boolean rangesSupported;
+    private String validator;
+    private DownloadSegment[] segments;
+    
+    // for Gson
+    private DownloadState() {
+    
+    }
+    
+    public DownloadState(String url, long size, boolean rangesSupported, String validator, DownloadSegment[] segments) {
+        this.url = url;
+        this.size = size;
+        this.rangesSupported = rangesSupported;
+        this.validator = validator;
+        this.segments = segments;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public boolean isRangesSupported() {
+        return rangesSupported;
+    }
+    
+    public String getValidator() {
+        return validator;
+    }
+    
+    public DownloadSegment[] getSegments() {
+        return segments;
+    }
+    
+    public long getDownloaded() {
+        long downloaded = 0;
+        for (DownloadSegment segment : segments) {
+            downloaded += segment.getDownloaded();
+        }
+        return downloaded;
+    }
+    
+    public long getContiguousDownloaded() {
+        // segments are stored in file order
+        long downloaded = 0;
+        for (DownloadSegment segment : segments) {
+            downloaded += segment.getDownloaded();
+            if (!segment.isComplete()) {
+                break;
+            }
+        }
+        return downloaded;
+    }
+    
+    public boolean isComplete() {
+        for (DownloadSegment segment : segments) {
+            if (!segment.isComplete()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public boolean isResumableWith(DownloadState remoteState) {
+        return rangesSupported && remoteState.rangesSupported && url.equals(remoteState.url) && size == remoteState.size
+                && validator != null && Objects.equals(validator, remoteState.validator);
+    }
+
+}
@@ -0,0 +1,13 @@
+package pl.warlander.cdda.launcher.model.download;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+public interface HttpConnector {
+    
+    HttpConnector DIRECT = (url) -> (HttpURLConnection) url.openConnection();
+    
+    HttpURLConnection open(URL url) throws IOException;
+
+}
@@ -0,0 +1,185 @@
+package pl.warlander.cdda.launcher.model.download;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class SegmentedDownload {
+    
+    private final URL url;
+    private final File targetFile;
+    private final File stateFile;
+    private final DownloadListener listener;
+    private final CompletableFuture<File> completion;
+    
+    private volatile boolean cancelled;
+    private volatile boolean stateDiscarded;
+    
+    private DownloadState state;
+    private boolean finished;
+    private IOException failure;
+    
+    SegmentedDownload(URL url, File targetFile, DownloadListener listener) {
+        this.url = url;
+        this.targetFile = targetFile;
+        this.stateFile = new File(targetFile.getPath() + ".state");
+        this.listener = listener;
+        this.completion = new CompletableFuture();
+    }
+    
+    public URL getUrl() {
+        return url;
+    }
+    
+    public File getTargetFile() {
+        return targetFile;
+    }
+    
+    File getStateFile() {
+        return stateFile;
+    }
+    
+    DownloadListener getListener() {
+        return listener;
+    }
+    
+    void discardState() {
+        stateDiscarded = true;
+        stateFile.delete();
+    }
+    
+    boolean isStateDiscarded() {
+        return stateDiscarded;
+    }
+    
+    public synchronized void cancel() {
+        if (!finished) {
+            cancelled = true;
+            notifyAll();
+        }
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+    
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+    
+    public CompletableFuture<File> getCompletion() {
+        return completion;
+    }
+    
+    public File awaitCompletion() throws IOException {
+        try {
+            return completion.get();
+        } catch (ExecutionException ex) {
+            throw (IOException) ex.getCause();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for download");
+        }
+    }
+    
+    public InputStream openStream() {
+        return new DownloadInputStream();
+    }
+    
+    synchronized void begin(DownloadState state) {
+        this.state = state;
+        notifyAll();
+    }
+    
+    synchronized void bytesWritten() {
+        notifyAll();
+    }
+    
+    void finish(IOException failure) {
+        synchronized (this) {
+            this.failure = failure;
+            this.finished = true;
+            notifyAll();
+        }
+        
+        // completed outside the lock, dependent stages may run on this thread
+        if (failure != null) {
+            completion.completeExceptionally(failure);
+        } else if (cancelled) {
+            completion.completeExceptionally(new IOException("Download of " + targetFile.getName() + " cancelled"));
+        } else {
+            completion.complete(targetFile);
+        }
+    }
+    
+    private synchronized long awaitAvailable(long position) throws IOException {
+        try {
+            while (true) {
+                if (failure != null) {
+                    throw new IOException("Download of " + targetFile.getName() + " failed", failure);
+                }
+                if (cancelled) {
+                    throw new IOException("Download of " + targetFile.getName() + " cancelled");
+                }
+                if (state != null) {
+                    long available = state.getContiguousDownloaded();
+                    if (available > position || finished) {
+                        return available;
+                    }
+                }
+                wait();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for download");
+        }
+    }
+    
+    private class DownloadInputStream extends InputStream {
+        
+        private FileChannel channel;
+        private long position;
+        
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+        
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            
+            // segments after the first are only readable once everything before them arrived
+            long available = awaitAvailable(position);
+            if (available <= position) {
+                return -1;
+            }
+            if (channel == null) {
+                channel = FileChannel.open(targetFile.toPath(), StandardOpenOption.READ);
+            }
+            
+            int toRead = (int) Math.min(length, available - position);
+            int read = channel.read(ByteBuffer.wrap(buffer, offset, toRead), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+        
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    
+    }
+
+}
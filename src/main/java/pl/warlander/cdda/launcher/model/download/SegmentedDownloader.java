@@ -0,0 +1,334 @@
+package pl.warlander.cdda.launcher.model.download;
+
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SegmentedDownloader {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedDownloader.class);
+    
+    public static final int DEFAULT_CONNECTIONS = 4;
+    
+    private static final long MIN_SEGMENT_SIZE = 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int TIMEOUT_MILLIS = 30000;
+    private static final int MAX_RETRIES = 5;
+    private static final long PROGRESS_INTERVAL_MILLIS = 250;
+    private static final long STATE_SAVE_INTERVAL_MILLIS = 1000;
+    
+    private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes \\d+-\\d+/(\\d+)");
+    
+    private final int connections;
+    private final HttpConnector connector;
+    private final ExecutorService executor;
+    
+    public SegmentedDownloader(int connections) {
+        this(connections, HttpConnector.DIRECT);
+    }
+    
+    public SegmentedDownloader(int connections, HttpConnector connector) {
+        this.connections = Math.max(1, connections);
+        this.connector = connector;
+        this.executor = Executors.newCachedThreadPool((runnable) -> {
+            Thread thread = new Thread(runnable, "Download");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    public SegmentedDownload createDownload(URL url, File targetFile, DownloadListener listener) {
+        return new SegmentedDownload(url, targetFile, listener);
+    }
+    
+    public void start(SegmentedDownload download) {
+        executor.execute(() -> run(download));
+    }
+    
+    private void run(SegmentedDownload download) {
+        DownloadListener listener = download.getListener();
+        DownloadState state = null;
+        try {
+            state = prepareState(download);
+            long resumedBytes = state.getDownloaded();
+            if (resumedBytes > 0) {
+                logger.info("Resuming download of " + download.getTargetFile().getName() + " at " + resumedBytes / 1024 + " KB");
+            }
+            download.begin(state);
+            listener.onStart(download.getTargetFile().getName(), state.getSize());
+            
+            long startTime = System.currentTimeMillis();
+            try (FileChannel channel = FileChannel.open(download.getTargetFile().toPath(), StandardOpenOption.WRITE)) {
+                downloadSegments(download, state, channel);
+            }
+            
+            if (download.isCancelled()) {
+                saveState(download, state);
+                logger.info("Download of " + download.getTargetFile().getName() + " cancelled, progress kept for resuming");
+                download.finish(null);
+                listener.onCancel();
+                return;
+            }
+            
+            download.getStateFile().delete();
+            long downloadedBytes = state.getDownloaded() - resumedBytes;
+            long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+            logger.info("Downloaded " + download.getTargetFile().getName() + " over " + state.getSegments().length + " connections ("
+                    + downloadedBytes / 1024 + " KB in " + duration + " ms, " + downloadedBytes / duration + " KB/s)");
+            download.finish(null);
+            listener.onComplete();
+        } catch (IOException | RuntimeException ex) {
+            logger.error("Unable to download " + download.getUrl(), ex);
+            // listener may fail after the download already settled, its completion must not change then
+            if (download.isFinished()) {
+                return;
+            }
+            if (state != null) {
+                saveState(download, state);
+            }
+            // completion has to settle whatever went wrong, streaming readers and install stages wait on it
+            IOException failure = ex instanceof IOException ? (IOException) ex : new IOException("Unable to download " + download.getUrl(), ex);
+            download.finish(failure);
+            listener.onError(failure);
+        }
+    }
+    
+    private DownloadState prepareState(SegmentedDownload download) throws IOException {
+        DownloadState remoteState = probe(download.getUrl());
+        DownloadState savedState = loadState(download);
+        File targetFile = download.getTargetFile();
+        if (savedState != null && savedState.isResumableWith(remoteState) && targetFile.length() == savedState.getSize()) {
+            return savedState;
+        }
+        
+        Files.createDirectories(targetFile.getAbsoluteFile().getParentFile().toPath());
+        try (RandomAccessFile file = new RandomAccessFile(targetFile, "rw")) {
+            // preallocated so every segment can write at its own offset
+            file.setLength(Math.max(remoteState.getSize(), 0));
+        }
+        saveState(download, remoteState);
+        return remoteState;
+    }
+    
+    private DownloadState probe(URL url) throws IOException {
+        HttpURLConnection connection = openConnection(url);
+        connection.setRequestProperty("Range", "bytes=0-0");
+        try {
+            int responseCode = connection.getResponseCode();
+            String validator = connection.getHeaderField("ETag");
+            if (validator == null) {
+                validator = connection.getHeaderField("Last-Modified");
+            }
+            
+            if (responseCode == HttpURLConnection.HTTP_PARTIAL) {
+                Matcher matcher = CONTENT_RANGE_PATTERN.matcher(String.valueOf(connection.getHeaderField("Content-Range")));
+                if (matcher.matches()) {
+                    long size = Long.parseLong(matcher.group(1));
+                    return new DownloadState(url.toString(), size, true, validator, createSegments(size));
+                }
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK && responseCode != HttpURLConnection.HTTP_PARTIAL) {
+                throw new IOException("Server returned " + responseCode + " for " + url);
+            }
+            
+            // no usable range support, fetched over a single connection
+            long size = connection.getContentLengthLong();
+            DownloadSegment segment = new DownloadSegment(0, size >= 0 ? size - 1 : -1);
+            return new DownloadState(url.toString(), size, false, validator, new DownloadSegment[] {segment});
+        } finally {
+            connection.disconnect();
+        }
+    }
+    
+    private DownloadSegment[] createSegments(long size) {
+        int segmentCount = (int) Math.max(1, Math.min(connections, size / MIN_SEGMENT_SIZE));
+        DownloadSegment[] segments = new DownloadSegment[segmentCount];
+        long segmentSize = size / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            long start = i * segmentSize;
+            long end = i == segmentCount - 1 ? size - 1 : start + segmentSize - 1;
+            segments[i] = new DownloadSegment(start, end);
+        }
+        return segments;
+    }
+    
+    private void downloadSegments(SegmentedDownload download, DownloadState state, FileChannel channel) throws IOException {
+        ArrayList<Future<?>> results = new ArrayList();
+        for (DownloadSegment segment : state.getSegments()) {
+            if (!segment.isComplete()) {
+                results.add(executor.submit(() -> {
+                    downloadSegment(download, state, segment, channel);
+                    return null;
+                }));
+            }
+        }
+        
+        long lastDownloaded = state.getDownloaded();
+        long lastUpdate = System.currentTimeMillis();
+        long lastSave = lastUpdate;
+        double bytesPerSecond = 0;
+        try {
+            for (Future<?> result : results) {
+                while (true) {
+                    try {
+                        result.get(PROGRESS_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException ex) {
+                        long now = System.currentTimeMillis();
+                        long downloaded = state.getDownloaded();
+                        double currentRate = (downloaded - lastDownloaded) * 1000d / Math.max(now - lastUpdate, 1);
+                        bytesPerSecond = bytesPerSecond == 0 ? currentRate : bytesPerSecond * 0.7 + currentRate * 0.3;
+                        download.getListener().onUpdate(downloaded, state.getSize(), bytesPerSecond);
+                        lastDownloaded = downloaded;
+                        lastUpdate = now;
+                        
+                        if (now - lastSave >= STATE_SAVE_INTERVAL_MILLIS) {
+                            saveState(download, state);
+                            lastSave = now;
+                        }
+                    }
+                }
+            }
+        } catch (ExecutionException ex) {
+            // remaining segments stop at their next chunk, the saved state lets them resume later
+            download.cancel();
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException("Unable to download " + download.getUrl(), ex.getCause());
+        } catch (InterruptedException ex) {
+            download.cancel();
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void downloadSegment(SegmentedDownload download, DownloadState state, DownloadSegment segment, FileChannel channel) throws IOException, InterruptedException {
+        int retries = 0;
+        while (!segment.isComplete() && !download.isCancelled()) {
+            try {
+                if (transferSegment(download, state, segment, channel)) {
+                    return;
+                }
+            } catch (IOException ex) {
+                // a changed remote file can't be fixed by asking again
+                if (++retries > MAX_RETRIES || download.isCancelled() || download.isStateDiscarded()) {
+                    throw ex;
+                }
+                logger.warn("Segment at " + segment.getPosition() + " of " + download.getTargetFile().getName() + " interrupted, retrying: " + ex);
+                Thread.sleep(500L << retries);
+            }
+        }
+    }
+    
+    private boolean transferSegment(SegmentedDownload download, DownloadState state, DownloadSegment segment, FileChannel channel) throws IOException {
+        HttpURLConnection connection = openConnection(download.getUrl());
+        if (state.isRangesSupported()) {
+            connection.setRequestProperty("Range", "bytes=" + segment.getPosition() + "-" + segment.getEnd());
+            if (state.getValidator() != null) {
+                // server sends the whole file instead of a range if it changed in the meantime
+                connection.setRequestProperty("If-Range", state.getValidator());
+            }
+        } else {
+            segment.restart();
+        }
+        
+        try {
+            int responseCode = connection.getResponseCode();
+            if (state.isRangesSupported() && responseCode != HttpURLConnection.HTTP_PARTIAL) {
+                download.discardState();
+                throw new IOException("Server returned " + responseCode + " for range request, remote file might have changed");
+            }
+            if (!state.isRangesSupported() && responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Server returned " + responseCode + " for " + download.getUrl());
+            }
+            
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream input = connection.getInputStream()) {
+                while (!segment.isComplete() && !download.isCancelled()) {
+                    int read = input.read(buffer, 0, (int) Math.min(buffer.length, segment.getRemaining()));
+                    if (read == -1) {
+                        break;
+                    }
+                    ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+                    while (data.hasRemaining()) {
+                        channel.write(data, segment.getPosition() + data.position());
+                    }
+                    segment.advance(read);
+                    download.bytesWritten();
+                }
+            }
+        } finally {
+            connection.disconnect();
+        }
+        
+        if (segment.getEnd() < 0 && !download.isCancelled()) {
+            // size was unknown up front, end of stream completes the only segment
+            segment.finish();
+            return true;
+        }
+        if (!segment.isComplete() && !download.isCancelled()) {
+            throw new IOException("Connection closed " + segment.getRemaining() + " bytes before end of segment");
+        }
+        return true;
+    }
+    
+    private HttpURLConnection openConnection(URL url) throws IOException {
+        HttpURLConnection connection = connector.open(url);
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        return connection;
+    }
+    
+    private DownloadState loadState(SegmentedDownload download) {
+        File stateFile = download.getStateFile();
+        if (!stateFile.exists()) {
+            return null;
+        }
+        try (FileReader reader = new FileReader(stateFile)) {
+            return new Gson().fromJson(reader, DownloadState.class);
+        } catch (IOException | RuntimeException ex) {
+            logger.warn("Unable to read download state " + stateFile.getName() + ", starting over", ex);
+            return null;
+        }
+    }
+    
+    private void saveState(SegmentedDownload download, DownloadState state) {
+        if (!state.isRangesSupported() || download.isStateDiscarded()) {
+            return;
+        }
+        File stateFile = download.getStateFile();
+        File temporaryFile = new File(stateFile.getPath() + ".tmp");
+        try {
+            // segment offsets may move on while this is written, older values only mean refetching a few bytes
+            try (FileWriter writer = new FileWriter(temporaryFile)) {
+                new Gson().toJson(state, writer);
+            }
+            Files.move(temporaryFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            logger.warn("Unable to save download state " + stateFile.getName(), ex);
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package pl.warlander.cdda.launcher.model.extraction;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+
+public interface ArchiveExtractor {
+    
+    public static final int DEFAULT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    
+    public abstract ExtractionStatistics extract(File archiveFile, ExtractionTarget target) throws IOException, ArchiveException;
+    
+    public static ArchiveExtractor createArchiveExtractor(File archiveFile) throws IOException {
+        try (InputStream input = new BufferedInputStream(new FileInputStream(archiveFile))) {
+            if (isCompressed(input)) {
+                return new TarArchiveExtractor(DEFAULT_THREADS);
+            }
+            
+            String format = ArchiveStreamFactory.detect(input);
+            if (ArchiveStreamFactory.ZIP.equals(format)) {
+                return new ZipArchiveExtractor(DEFAULT_THREADS);
+            }
+            else if (ArchiveStreamFactory.TAR.equals(format)) {
+                return new TarArchiveExtractor(DEFAULT_THREADS);
+            }
+        } catch (ArchiveException ex) {
+            // unknown format, let sequential extractor report it
+        }
+        
+        return new SequentialArchiveExtractor();
+    }
+    
+    private static boolean isCompressed(InputStream input) {
+        try {
+            CompressorStreamFactory.detect(input);
+            return true;
+        } catch (CompressorException ex) {
+            return false;
+        }
+    }
+
+}
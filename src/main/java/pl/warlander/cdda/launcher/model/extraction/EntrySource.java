@@ -0,0 +1,10 @@
+package pl.warlander.cdda.launcher.model.extraction;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface EntrySource {
+    
+    public abstract InputStream open() throws IOException;
+
+}
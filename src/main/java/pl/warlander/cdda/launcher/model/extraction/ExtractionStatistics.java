@@ -0,0 +1,46 @@
+package pl.warlander.cdda.launcher.model.extraction;
+
+public class ExtractionStatistics {
+    
+    private static final double BYTES_IN_MEGABYTE = 1024 * 1024;
+    
+    private final long files;
+    private final long bytes;
+    private final long durationMillis;
+    
+    public ExtractionStatistics(long files, long bytes, long durationMillis) {
+        this.files = files;
+        this.bytes = bytes;
+        this.durationMillis = durationMillis;
+    }
+    
+    public long getFiles() {
+        return files;
+    }
+    
+    public long getBytes() {
+        return bytes;
+    }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    public double getFilesPerSecond() {
+        return files / getDurationSeconds();
+    }
+    
+    public double getMegabytesPerSecond() {
+        return bytes / BYTES_IN_MEGABYTE / getDurationSeconds();
+    }
+    
+    private double getDurationSeconds() {
+        return Math.max(durationMillis, 1) / 1000d;
+    }
+    
+    public String toString() {
+        return String.format("%d files, %.2f MB in %.2f s - %.0f files/s, %.2f MB/s",
+                files, bytes / BYTES_IN_MEGABYTE, getDurationSeconds(), getFilesPerSecond(), getMegabytesPerSecond());
+    }
+
+}
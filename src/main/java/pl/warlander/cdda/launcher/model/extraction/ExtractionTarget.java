@@ -0,0 +1,145 @@
+package pl.warlander.cdda.launcher.model.extraction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.FileUtils;
+import pl.warlander.cdda.launcher.model.install.InstallManifest;
+import pl.warlander.cdda.launcher.model.install.InstallManifestEntry;
+import pl.warlander.cdda.launcher.utils.HashUtils;
+
+public class ExtractionTarget {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(HashUtils::createSha256);
+    
+    private final Path root;
+    private final Set<Path> createdDirectories;
+    private final Queue<InstallManifestEntry> manifestEntries;
+    
+    private final AtomicLong files;
+    private final AtomicLong bytes;
+    private final long startTime;
+    
+    public ExtractionTarget(File root) {
+        this.root = root.toPath().toAbsolutePath().normalize();
+        this.createdDirectories = ConcurrentHashMap.newKeySet();
+        this.manifestEntries = new ConcurrentLinkedQueue();
+        this.files = new AtomicLong();
+        this.bytes = new AtomicLong();
+        this.startTime = System.currentTimeMillis();
+    }
+    
+    public Path resolve(String entryName) throws IOException {
+        Path path = root.resolve(entryName).normalize();
+        if (!path.startsWith(root)) {
+            throw new IOException("Archive entry points outside of target folder: " + entryName);
+        }
+        return path;
+    }
+    
+    public Path prepareDirectory(String entryName) throws IOException {
+        Path directory = resolve(entryName);
+        createDirectory(directory);
+        return directory;
+    }
+    
+    public Path prepareFile(String entryName) throws IOException {
+        Path file = resolve(entryName);
+        createDirectory(file.getParent());
+        return file;
+    }
+    
+    private void createDirectory(Path directory) throws IOException {
+        if (createdDirectories.add(directory)) {
+            Files.createDirectories(directory);
+        }
+    }
+    
+    // files are hashed while they are written, so the install manifest needs no second pass over them
+    public void writeFile(Path file, InputStream input, long lastModified) throws IOException {
+        MessageDigest digest = DIGESTS.get();
+        digest.reset();
+        long written;
+        try (OutputStream output = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+            written = copy(input, output);
+        }
+        setLastModified(file, lastModified);
+        recordFile(file, written, digest.digest());
+    }
+    
+    // random access archives can open an entry again, targets only interested in its hash may read it twice
+    public void writeFile(Path file, EntrySource source, long size, long lastModified) throws IOException {
+        try (InputStream input = source.open()) {
+            writeFile(file, input, lastModified);
+        }
+    }
+    
+    public void writeFile(Path file, byte[] data, int length, long lastModified) throws IOException {
+        try (OutputStream output = Files.newOutputStream(file)) {
+            output.write(data, 0, length);
+        }
+        setLastModified(file, lastModified);
+        recordFile(file, length, HashUtils.sha256Digest(data, length));
+    }
+    
+    protected long copy(InputStream input, OutputStream output) throws IOException {
+        byte[] buffer = BUFFERS.get();
+        long written = 0;
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            output.write(buffer, 0, read);
+            written += read;
+        }
+        return written;
+    }
+    
+    protected void setLastModified(Path file, long lastModified) throws IOException {
+        if (lastModified > 0) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+        }
+    }
+    
+    protected void recordFile(Path file, long size, byte[] hash) {
+        manifestEntries.add(new InstallManifestEntry(getRelativePath(file), size, hash));
+        files.incrementAndGet();
+        bytes.addAndGet(size);
+    }
+    
+    public void reset() throws IOException {
+        FileUtils.deleteDirectory(root.toFile());
+        createdDirectories.clear();
+        manifestEntries.clear();
+        files.set(0);
+        bytes.set(0);
+    }
+    
+    public String getRelativePath(Path file) {
+        return root.relativize(file).toString().replace(File.separatorChar, '/');
+    }
+    
+    public File getRoot() {
+        return root.toFile();
+    }
+    
+    public InstallManifest createInstallManifest(String buildName, String sourceUrl) {
+        return new InstallManifest(buildName, sourceUrl, System.currentTimeMillis(), manifestEntries.toArray(InstallManifestEntry[]::new));
+    }
+    
+    public ExtractionStatistics finish() throws IOException {
+        return new ExtractionStatistics(files.get(), bytes.get(), System.currentTimeMillis() - startTime);
+    }
+
+}
@@ -0,0 +1,128 @@
+package pl.warlander.cdda.launcher.model.extraction;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.utils.IOUtils;
+
+class PipelinedEntryWriter {
+    
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int MEMORY_BUDGET = 64 * 1024 * 1024;
+    private static final int OWNER_EXECUTE_MODE = 0100;
+    
+    private final int writers;
+    
+    PipelinedEntryWriter(int writers) {
+        this.writers = writers;
+    }
+    
+    ExtractionStatistics extract(ArchiveInputStream input, ExtractionTarget target) throws IOException {
+        AtomicReference<Exception> failure = new AtomicReference();
+        // bounds the bytes of entries read ahead of the writers
+        Semaphore memoryBudget = new Semaphore(MEMORY_BUDGET);
+        ThreadPoolExecutor writerPool = new ThreadPoolExecutor(writers, writers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue(QUEUE_CAPACITY), new ThreadPoolExecutor.CallerRunsPolicy());
+        
+        try {
+            ArchiveEntry entry;
+            while ((entry = input.getNextEntry()) != null && failure.get() == null) {
+                if (entry.isDirectory()) {
+                    target.prepareDirectory(entry.getName());
+                    continue;
+                }
+                if (entry instanceof TarArchiveEntry && !((TarArchiveEntry) entry).isFile()) {
+                    continue;
+                }
+                
+                Path file = target.prepareFile(entry.getName());
+                long lastModified = entry.getLastModifiedDate().getTime();
+                boolean executable = isExecutable(entry);
+                long entrySize = entry.getSize();
+                if (entrySize == ArchiveEntry.SIZE_UNKNOWN || entrySize > MEMORY_BUDGET) {
+                    target.writeFile(file, input, lastModified);
+                    markExecutable(file, executable);
+                    continue;
+                }
+                
+                int size = (int) entrySize;
+                memoryBudget.acquire(size);
+                byte[] data = new byte[size];
+                try {
+                    IOUtils.readFully(input, data);
+                } catch (IOException ex) {
+                    memoryBudget.release(size);
+                    throw ex;
+                }
+                writerPool.execute(() -> {
+                    try {
+                        target.writeFile(file, data, size, lastModified);
+                        markExecutable(file, executable);
+                    } catch (Exception ex) {
+                        failure.compareAndSet(null, ex);
+                    } finally {
+                        memoryBudget.release(size);
+                    }
+                });
+            }
+            
+            writerPool.shutdown();
+            writerPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Extraction interrupted", ex);
+        } finally {
+            // callers reset or delete the target after a failure, so no writer may still be running by then
+            writerPool.shutdownNow();
+            awaitWriters(writerPool);
+        }
+        
+        Exception writerFailure = failure.get();
+        if (writerFailure instanceof IOException) {
+            throw (IOException) writerFailure;
+        }
+        else if (writerFailure != null) {
+            throw new IOException("Unable to write archive entry", writerFailure);
+        }
+        return target.finish();
+    }
+    
+    private void awaitWriters(ThreadPoolExecutor writerPool) {
+        boolean interrupted = false;
+        while (!writerPool.isTerminated()) {
+            try {
+                writerPool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private boolean isExecutable(ArchiveEntry entry) {
+        if (entry instanceof TarArchiveEntry) {
+            return (((TarArchiveEntry) entry).getMode() & OWNER_EXECUTE_MODE) != 0;
+        }
+        else if (entry instanceof ZipArchiveEntry) {
+            return (((ZipArchiveEntry) entry).getUnixMode() & OWNER_EXECUTE_MODE) != 0;
+        }
+        return false;
+    }
+    
+    private void markExecutable(Path file, boolean executable) {
+        if (executable) {
+            file.toFile().setExecutable(true);
+        }
+    }
+
+}
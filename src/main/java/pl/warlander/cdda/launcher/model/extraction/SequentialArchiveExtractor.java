@@ -0,0 +1,32 @@
+package pl.warlander.cdda.launcher.model.extraction;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import org.apache.commons.compress.archivers.ArchiveEntry;
+import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.ArchiveInputStream;
+import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+
+public class SequentialArchiveExtractor implements ArchiveExtractor {
+    
+    public ExtractionStatistics extract(File archiveFile, ExtractionTarget target) throws IOException, ArchiveException {
+        try (BufferedInputStream bis = new BufferedInputStream(new FileInputStream(archiveFile));
+                ArchiveInputStream input = new ArchiveStreamFactory().createArchiveInputStream(bis)) {
+            ArchiveEntry entry;
+            while ((entry = input.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    target.prepareDirectory(entry.getName());
+                    continue;
+                }
+                Path file = target.prepareFile(entry.getName());
+                target.writeFile(file, input, entry.getLastModifiedDate().getTime());
+            }
+        }
+        
+        return target.finish();
+    }
+
+}
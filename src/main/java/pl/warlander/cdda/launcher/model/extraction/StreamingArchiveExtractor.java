@@ -0,0 +1,94 @@
+package pl.warlander.cdda.launcher.model.extraction;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.ArchiveStreamFactory;
+import org.apache.commons.compress.archivers.zip.UnsupportedZipFeatureException;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.CloseShieldInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.warlander.cdda.launcher.model.download.SegmentedDownload;
+
+public class StreamingArchiveExtractor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StreamingArchiveExtractor.class);
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final int threads;
+    
+    public StreamingArchiveExtractor(int threads) {
+        this.threads = threads;
+    }
+    
+    public ExtractionStatistics extract(InputStream input, ExtractionTarget target, SegmentedDownload download) throws IOException, ArchiveException {
+        BufferedInputStream bufferedInput = new BufferedInputStream(input, BUFFER_SIZE);
+        ExtractionStatistics statistics = extractDetected(bufferedInput, target, download);
+        // archive formats may end before the stream does, rest of the download still has to be consumed
+        IOUtils.skip(bufferedInput, Long.MAX_VALUE);
+        return statistics;
+    }
+    
+    private ExtractionStatistics extractDetected(BufferedInputStream input, ExtractionTarget target, SegmentedDownload download) throws IOException, ArchiveException {
+        if (isCompressed(input)) {
+            return new TarArchiveExtractor(threads).extract(new CloseShieldInputStream(input), target);
+        }
+        
+        String format = detectArchive(input);
+        if (ArchiveStreamFactory.TAR.equals(format)) {
+            return new TarArchiveExtractor(threads).extract(new CloseShieldInputStream(input), target);
+        }
+        else if (ArchiveStreamFactory.ZIP.equals(format)) {
+            return extractZip(input, target, download);
+        }
+        
+        logger.info("Archive format can't be read sequentially, extracting it once downloaded");
+        File archive = awaitArchive(input, download);
+        return ArchiveExtractor.createArchiveExtractor(archive).extract(archive, target);
+    }
+    
+    private ExtractionStatistics extractZip(InputStream input, ExtractionTarget target, SegmentedDownload download) throws IOException {
+        // local headers are read as they arrive, the downloaded file covers entries that need the central directory
+        try {
+            ZipArchiveInputStream zipInput = new ZipArchiveInputStream(new CloseShieldInputStream(input), "UTF8", true, true);
+            return new PipelinedEntryWriter(threads).extract(zipInput, target);
+        } catch (UnsupportedZipFeatureException ex) {
+            logger.warn("Zip entry can't be read sequentially, falling back to downloaded archive", ex);
+        }
+        
+        File archive = awaitArchive(input, download);
+        target.reset();
+        return new ZipArchiveExtractor(threads).extract(archive, target);
+    }
+    
+    private File awaitArchive(InputStream input, SegmentedDownload download) throws IOException {
+        // rest of the stream is still read, callers may be hashing the whole archive through it
+        IOUtils.skip(input, Long.MAX_VALUE);
+        return download.awaitCompletion();
+    }
+    
+    private boolean isCompressed(InputStream input) {
+        try {
+            CompressorStreamFactory.detect(input);
+            return true;
+        } catch (CompressorException ex) {
+            return false;
+        }
+    }
+    
+    private String detectArchive(InputStream input) {
+        try {
+            return ArchiveStreamFactory.detect(input);
+        } catch (ArchiveException ex) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package pl.warlander.cdda.launcher.model.extraction;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
+
+public class TarArchiveExtractor implements ArchiveExtractor {
+    
+    private final int writers;
+    
+    public TarArchiveExtractor(int writers) {
+        this.writers = writers;
+    }
+    
+    public ExtractionStatistics extract(File archiveFile, ExtractionTarget target) throws IOException {
+        try (InputStream input = new BufferedInputStream(new FileInputStream(archiveFile))) {
+            return extract(input, target);
+        }
+    }
+    
+    public ExtractionStatistics extract(InputStream input, ExtractionTarget target) throws IOException {
+        InputStream bufferedInput = input.markSupported() ? input : new BufferedInputStream(input);
+        try (TarArchiveInputStream tarInput = new TarArchiveInputStream(decompress(bufferedInput))) {
+            return new PipelinedEntryWriter(writers).extract(tarInput, target);
+        }
+    }
+    
+    private InputStream decompress(InputStream input) throws IOException {
+        try {
+            String compression = CompressorStreamFactory.detect(input);
+            return new CompressorStreamFactory().createCompressorInputStream(compression, input);
+        } catch (CompressorException ex) {
+            // plain tar
+            return input;
+        }
+    }
+
+}
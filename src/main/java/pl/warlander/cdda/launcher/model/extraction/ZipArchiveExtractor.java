@@ -0,0 +1,90 @@
+package pl.warlander.cdda.launcher.model.extraction;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+public class ZipArchiveExtractor implements ArchiveExtractor {
+    
+    private final int threads;
+    
+    public ZipArchiveExtractor(int threads) {
+        this.threads = threads;
+    }
+    
+    public ExtractionStatistics extract(File archiveFile, ExtractionTarget target) throws IOException {
+        try (ZipFile zipFile = new ZipFile(archiveFile)) {
+            // directories are created up front so workers only ever open files
+            ArrayList<ZipArchiveEntry> fileEntries = new ArrayList();
+            ArrayList<Path> filePaths = new ArrayList();
+            Enumeration<ZipArchiveEntry> entries = zipFile.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                if (entry.isDirectory()) {
+                    target.prepareDirectory(entry.getName());
+                    continue;
+                }
+                fileEntries.add(entry);
+                filePaths.add(target.prepareFile(entry.getName()));
+            }
+            
+            ExecutorService workers = Executors.newFixedThreadPool(threads);
+            ArrayList<Future<?>> results = new ArrayList();
+            try {
+                for (int i = 0; i < fileEntries.size(); i++) {
+                    ZipArchiveEntry entry = fileEntries.get(i);
+                    Path file = filePaths.get(i);
+                    results.add(workers.submit(() -> {
+                        target.writeFile(file, () -> zipFile.getInputStream(entry), entry.getSize(), entry.getTime());
+                        return null;
+                    }));
+                }
+                
+                for (Future<?> result : results) {
+                    result.get();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Extraction interrupted", ex);
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IOException) {
+                    throw (IOException) ex.getCause();
+                }
+                throw new IOException("Unable to extract archive entry", ex.getCause());
+            } finally {
+                // zip file is closed and callers reset or delete the target after a failure, so no worker may still be running by then
+                for (Future<?> result : results) {
+                    result.cancel(false);
+                }
+                workers.shutdownNow();
+                awaitWorkers(workers);
+            }
+        }
+        
+        return target.finish();
+    }
+    
+    private void awaitWorkers(ExecutorService workers) {
+        boolean interrupted = false;
+        while (!workers.isTerminated()) {
+            try {
+                workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
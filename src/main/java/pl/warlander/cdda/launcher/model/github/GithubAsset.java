@@ -0,0 +1,21 @@
+package pl.warlander.cdda.launcher.model.github;
+
+public class GithubAsset {
+    
+    private final String name;
+    private final String downloadUrl;
+    
+    public GithubAsset(String name, String downloadUrl) {
+        this.name = name;
+        this.downloadUrl = downloadUrl;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getDownloadUrl() {
+        return downloadUrl;
+    }
+
+}
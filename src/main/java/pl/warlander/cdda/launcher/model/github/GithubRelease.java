@@ -0,0 +1,42 @@
+package pl.warlander.cdda.launcher.model.github;
+
+public class GithubRelease {
+    
+    private final String tagName;
+    private final String publishedAt;
+    private final String body;
+    private final GithubAsset[] assets;
+    
+    public GithubRelease(String tagName, String publishedAt, String body, GithubAsset[] assets) {
+        this.tagName = tagName;
+        this.publishedAt = publishedAt;
+        this.body = body;
+        this.assets = assets;
+    }
+    
+    public String getTagName() {
+        return tagName;
+    }
+    
+    public String getPublishedAt() {
+        return publishedAt;
+    }
+    
+    public String getBody() {
+        return body;
+    }
+    
+    public GithubAsset[] getAssets() {
+        return assets;
+    }
+    
+    public GithubAsset findAsset(String lookupString) {
+        for (GithubAsset asset : assets) {
+            if (asset.getName() != null && asset.getName().contains(lookupString)) {
+                return asset;
+            }
+        }
+        return null;
+    }
+
+}
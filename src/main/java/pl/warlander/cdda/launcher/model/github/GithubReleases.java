@@ -0,0 +1,27 @@
+package pl.warlander.cdda.launcher.model.github;
+
+import java.io.IOException;
+import java.net.URL;
+import pl.warlander.cdda.launcher.model.http.HttpCache;
+
+public class GithubReleases {
+    
+    public static final String RELEASES_PATH = "https://api.github.com/repos/CleverRaven/Cataclysm-DDA/releases";
+    
+    public static final int PAGE_SIZE = 30;
+    
+    // long enough to cover the builds and changelog fetches of one refresh
+    private static final long MEMO_MILLIS = 10000;
+    
+    private GithubReleases() {
+    
+    }
+    
+    public static GithubRelease[] fetchReleases(HttpCache cache, int page) throws IOException {
+        // GitHub pages are numbered from 1
+        String pagePath = RELEASES_PATH + "?per_page=" + PAGE_SIZE + "&page=" + (page + 1);
+        return cache.getCoalescer().execute("releases " + pagePath, MEMO_MILLIS,
+                () -> GithubReleasesParser.parseReleases(cache.fetch(new URL(pagePath)).openReader()));
+    }
+
+}
@@ -0,0 +1,100 @@
+package pl.warlander.cdda.launcher.model.github;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+public class GithubReleasesParser {
+    
+    private GithubReleasesParser() {
+    
+    }
+    
+    // fields other than the ones below are skipped by the reader without being materialized
+    public static GithubRelease[] parseReleases(Reader reader) throws IOException {
+        ArrayList<GithubRelease> releases = new ArrayList();
+        
+        try (JsonReader json = new JsonReader(reader)) {
+            json.beginArray();
+            while (json.hasNext()) {
+                releases.add(parseRelease(json));
+            }
+            json.endArray();
+        }
+        
+        return releases.toArray(new GithubRelease[releases.size()]);
+    }
+    
+    private static GithubRelease parseRelease(JsonReader json) throws IOException {
+        String tagName = null;
+        String publishedAt = null;
+        String body = null;
+        GithubAsset[] assets = new GithubAsset[0];
+        
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "tag_name":
+                    tagName = nextString(json);
+                    break;
+                case "published_at":
+                    publishedAt = nextString(json);
+                    break;
+                case "body":
+                    body = nextString(json);
+                    break;
+                case "assets":
+                    assets = parseAssets(json);
+                    break;
+                default:
+                    json.skipValue();
+                    break;
+            }
+        }
+        json.endObject();
+        
+        return new GithubRelease(tagName, publishedAt, body, assets);
+    }
+    
+    private static GithubAsset[] parseAssets(JsonReader json) throws IOException {
+        ArrayList<GithubAsset> assets = new ArrayList();
+        
+        json.beginArray();
+        while (json.hasNext()) {
+            String name = null;
+            String downloadUrl = null;
+            
+            json.beginObject();
+            while (json.hasNext()) {
+                switch (json.nextName()) {
+                    case "name":
+                        name = nextString(json);
+                        break;
+                    case "browser_download_url":
+                        downloadUrl = nextString(json);
+                        break;
+                    default:
+                        json.skipValue();
+                        break;
+                }
+            }
+            json.endObject();
+            
+            assets.add(new GithubAsset(name, downloadUrl));
+        }
+        json.endArray();
+        
+        return assets.toArray(new GithubAsset[assets.size()]);
+    }
+    
+    private static String nextString(JsonReader json) throws IOException {
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+        return json.nextString();
+    }
+
+}
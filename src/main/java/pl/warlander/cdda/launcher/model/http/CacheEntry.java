@@ -0,0 +1,54 @@
+package pl.warlander.cdda.launcher.model.http;
+
+public class CacheEntry {
+    
+    private String url;
+    private String etag;
+    private String lastModified;
+    private String contentType;
+    private long expires;
+    private long size;
+    
+    // for Gson
+    private CacheEntry() {
+    
+    }
+    
+    public CacheEntry(String url, String etag, String lastModified, String contentType, long expires, long size) {
+        this.url = url;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.contentType = contentType;
+        this.expires = expires;
+        this.size = size;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public String getEtag() {
+        return etag;
+    }
+    
+    public String getLastModified() {
+        return lastModified;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public long getExpires() {
+        return expires;
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    void setExpires(long expires) {
+        this.expires = expires;
+    }
+
+}
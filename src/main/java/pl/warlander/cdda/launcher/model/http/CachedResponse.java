@@ -0,0 +1,59 @@
+package pl.warlander.cdda.launcher.model.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class CachedResponse {
+    
+    private static final Pattern CHARSET_PATTERN = Pattern.compile("charset=\"?([^\\s;\"]+)", Pattern.CASE_INSENSITIVE);
+    
+    private final byte[] body;
+    private final String contentType;
+    private final boolean fromCache;
+    
+    public CachedResponse(byte[] body, String contentType, boolean fromCache) {
+        this.body = body;
+        this.contentType = contentType;
+        this.fromCache = fromCache;
+    }
+    
+    public byte[] getBody() {
+        return body;
+    }
+    
+    public String getBodyAsString() {
+        return new String(body, getCharset());
+    }
+    
+    public Reader openReader() {
+        return new InputStreamReader(new ByteArrayInputStream(body), getCharset());
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public boolean isXml() {
+        return contentType != null && contentType.contains("xml");
+    }
+    
+    public boolean isFromCache() {
+        return fromCache;
+    }
+    
+    private Charset getCharset() {
+        if (contentType != null) {
+            Matcher matcher = CHARSET_PATTERN.matcher(contentType);
+            if (matcher.find() && Charset.isSupported(matcher.group(1))) {
+                return Charset.forName(matcher.group(1));
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+}
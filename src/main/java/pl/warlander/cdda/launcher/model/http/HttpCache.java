@@ -0,0 +1,262 @@
+package pl.warlander.cdda.launcher.model.http;
+
+import com.google.gson.Gson;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.warlander.cdda.launcher.utils.HashUtils;
+
+public class HttpCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(HttpCache.class);
+    
+    private static final int TIMEOUT_MILLIS = 15000;
+    private static final String ENTRY_EXTENSION = ".json";
+    private static final String BODY_EXTENSION = ".body";
+    private static final Pattern MAX_AGE_PATTERN = Pattern.compile("max-age=(\\d+)");
+    
+    private final File directory;
+    private final long maxBytes;
+    
+    // access ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CacheEntry> entries;
+    private long totalBytes;
+    
+    private final AtomicLong hits;
+    private final AtomicLong revalidations;
+    private final AtomicLong misses;
+    
+    private final RequestCoalescer coalescer;
+    
+    public HttpCache(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap(16, 0.75f, true);
+        this.hits = new AtomicLong();
+        this.revalidations = new AtomicLong();
+        this.misses = new AtomicLong();
+        this.coalescer = new RequestCoalescer();
+        loadEntries();
+    }
+    
+    public CachedResponse fetch(URL url) throws IOException {
+        String protocol = url.getProtocol();
+        if (!protocol.equals("http") && !protocol.equals("https")) {
+            return new CachedResponse(IOUtils.toByteArray(url), null, false);
+        }
+        // concurrent fetches of one URL share a single round trip
+        return coalescer.execute(url.toString(), 0, () -> load(url));
+    }
+    
+    private CachedResponse load(URL url) throws IOException {
+        byte[] urlBytes = url.toString().getBytes(StandardCharsets.UTF_8);
+        String key = HashUtils.sha256(urlBytes, urlBytes.length);
+        CacheEntry entry = getEntry(key);
+        if (entry != null && entry.getExpires() > System.currentTimeMillis()) {
+            byte[] body = readBody(key);
+            if (body != null) {
+                hits.incrementAndGet();
+                logger.info("Served " + url + " from cache (" + getStatistics() + ")");
+                return new CachedResponse(body, entry.getContentType(), true);
+            }
+        }
+        
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        if (entry != null && entry.getEtag() != null) {
+            connection.setRequestProperty("If-None-Match", entry.getEtag());
+        }
+        if (entry != null && entry.getLastModified() != null) {
+            connection.setRequestProperty("If-Modified-Since", entry.getLastModified());
+        }
+        
+        try {
+            int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null) {
+                byte[] body = readBody(key);
+                if (body != null) {
+                    entry.setExpires(getExpires(connection));
+                    saveEntry(key, entry);
+                    revalidations.incrementAndGet();
+                    logger.info("Revalidated cached " + url + " (" + getStatistics() + ")");
+                    return new CachedResponse(body, entry.getContentType(), true);
+                }
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Server returned " + responseCode + " for " + url);
+            }
+            
+            byte[] body;
+            try (InputStream input = connection.getInputStream()) {
+                body = IOUtils.toByteArray(input);
+            }
+            misses.incrementAndGet();
+            logger.info("Fetched " + url + " (" + getStatistics() + ")");
+            
+            String cacheControl = connection.getHeaderField("Cache-Control");
+            if (cacheControl == null || !cacheControl.contains("no-store")) {
+                CacheEntry newEntry = new CacheEntry(url.toString(), connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"),
+                        connection.getContentType(), getExpires(connection), body.length);
+                store(key, newEntry, body);
+            }
+            return new CachedResponse(body, connection.getContentType(), false);
+        } catch (IOException ex) {
+            byte[] body = entry != null ? readBody(key) : null;
+            if (body == null) {
+                throw ex;
+            }
+            // stale copy beats no data at all, e.g. when offline or rate limited
+            logger.warn("Unable to fetch " + url + ", using cached copy: " + ex.getMessage());
+            return new CachedResponse(body, entry.getContentType(), true);
+        } finally {
+            connection.disconnect();
+        }
+    }
+    
+    public void fetchToFile(URL url, File targetFile) throws IOException {
+        FileUtils.writeByteArrayToFile(targetFile, fetch(url).getBody());
+    }
+    
+    public RequestCoalescer getCoalescer() {
+        return coalescer;
+    }
+    
+    public long getHits() {
+        return hits.get();
+    }
+    
+    public long getRevalidations() {
+        return revalidations.get();
+    }
+    
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+    
+    public String getStatistics() {
+        return hits.get() + " hits, " + revalidations.get() + " revalidated, " + misses.get() + " misses, " + getTotalBytes() / 1024 + " KB cached";
+    }
+    
+    private long getExpires(HttpURLConnection connection) {
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        if (cacheControl != null) {
+            if (cacheControl.contains("no-cache")) {
+                return 0;
+            }
+            Matcher matcher = MAX_AGE_PATTERN.matcher(cacheControl);
+            if (matcher.find()) {
+                return System.currentTimeMillis() + Long.parseLong(matcher.group(1)) * 1000;
+            }
+        }
+        return connection.getHeaderFieldDate("Expires", 0);
+    }
+    
+    private synchronized CacheEntry getEntry(String key) {
+        return entries.get(key);
+    }
+    
+    private byte[] readBody(String key) {
+        try {
+            return Files.readAllBytes(new File(directory, key + BODY_EXTENSION).toPath());
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+    
+    private synchronized void store(String key, CacheEntry entry, byte[] body) {
+        if (body.length > maxBytes) {
+            return;
+        }
+        
+        try {
+            Files.createDirectories(directory.toPath());
+            File bodyFile = new File(directory, key + BODY_EXTENSION);
+            File temporaryFile = new File(directory, key + BODY_EXTENSION + ".tmp");
+            Files.write(temporaryFile.toPath(), body);
+            Files.move(temporaryFile.toPath(), bodyFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            saveEntry(key, entry);
+        } catch (IOException ex) {
+            logger.warn("Unable to cache " + entry.getUrl(), ex);
+            return;
+        }
+        
+        CacheEntry previousEntry = entries.put(key, entry);
+        totalBytes += entry.getSize() - (previousEntry != null ? previousEntry.getSize() : 0);
+        evict();
+    }
+    
+    private void saveEntry(String key, CacheEntry entry) {
+        try (FileWriter writer = new FileWriter(new File(directory, key + ENTRY_EXTENSION))) {
+            new Gson().toJson(entry, writer);
+        } catch (IOException ex) {
+            logger.warn("Unable to save cache entry for " + entry.getUrl(), ex);
+        }
+    }
+    
+    private void evict() {
+        Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, CacheEntry> eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue().getSize();
+            deleteFiles(eldest.getKey());
+            logger.info("Evicted " + eldest.getValue().getUrl() + " from cache");
+        }
+    }
+    
+    private void deleteFiles(String key) {
+        new File(directory, key + ENTRY_EXTENSION).delete();
+        new File(directory, key + BODY_EXTENSION).delete();
+    }
+    
+    private void loadEntries() {
+        File[] entryFiles = directory.listFiles((dir, name) -> name.endsWith(ENTRY_EXTENSION));
+        if (entryFiles == null) {
+            return;
+        }
+        
+        // last access order is not persisted, oldest files are the first candidates for eviction
+        Arrays.sort(entryFiles, Comparator.comparingLong(File::lastModified));
+        Gson gson = new Gson();
+        for (File entryFile : entryFiles) {
+            String key = entryFile.getName().substring(0, entryFile.getName().length() - ENTRY_EXTENSION.length());
+            try (FileReader reader = new FileReader(entryFile)) {
+                CacheEntry entry = gson.fromJson(reader, CacheEntry.class);
+                if (entry != null && new File(directory, key + BODY_EXTENSION).exists()) {
+                    entries.put(key, entry);
+                    totalBytes += entry.getSize();
+                    continue;
+                }
+            } catch (IOException | RuntimeException ex) {
+                logger.warn("Unable to read cache entry " + entryFile.getName(), ex);
+            }
+            deleteFiles(key);
+        }
+        evict();
+    }
+
+}
@@ -0,0 +1,101 @@
+package pl.warlander.cdda.launcher.model.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class RequestCoalescer {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RequestCoalescer.class);
+    
+    private final ConcurrentHashMap<String, Request> requests;
+    private final AtomicLong sharedResults;
+    
+    public RequestCoalescer() {
+        this.requests = new ConcurrentHashMap();
+        this.sharedResults = new AtomicLong();
+    }
+    
+    public <T> T execute(String key, long memoMillis, Loader<T> loader) throws IOException {
+        while (true) {
+            Request request = new Request();
+            Request existingRequest = requests.putIfAbsent(key, request);
+            if (existingRequest != null) {
+                if (existingRequest.isExpired()) {
+                    requests.remove(key, existingRequest);
+                    continue;
+                }
+                sharedResults.incrementAndGet();
+                logger.info("Sharing result of " + key + " (" + sharedResults.get() + " shared so far)");
+                return (T) existingRequest.await();
+            }
+            
+            try {
+                T result = loader.load();
+                request.complete(result, memoMillis);
+                return result;
+            } catch (IOException | RuntimeException ex) {
+                // failures are handed to current waiters only, the next consumer tries again
+                requests.remove(key, request);
+                request.fail(ex);
+                throw ex;
+            }
+        }
+    }
+    
+    public long getSharedResults() {
+        return sharedResults.get();
+    }
+    
+    public interface Loader<T> {
+        
+        public T load() throws IOException;
+    
+    }
+    
+    private static class Request {
+        
+        private final CompletableFuture<Object> result;
+        private volatile long expires;
+        
+        private Request() {
+            this.result = new CompletableFuture();
+            this.expires = Long.MAX_VALUE;
+        }
+        
+        private void complete(Object value, long memoMillis) {
+            expires = System.currentTimeMillis() + memoMillis;
+            result.complete(value);
+        }
+        
+        private void fail(Exception ex) {
+            expires = 0;
+            result.completeExceptionally(ex);
+        }
+        
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expires;
+        }
+        
+        private Object await() throws IOException {
+            try {
+                return result.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for shared request");
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof IOException) {
+                    throw (IOException) ex.getCause();
+                }
+                throw (RuntimeException) ex.getCause();
+            }
+        }
+    
+    }
+
+}
@@ -0,0 +1,49 @@
+package pl.warlander.cdda.launcher.model.install;
+
+import java.io.File;
+
+public class InstallManifest {
+    
+    public static final String MANIFEST_FILE = "install.manifest";
+    
+    private final String buildName;
+    private final String sourceUrl;
+    private final long installed;
+    private final InstallManifestEntry[] entries;
+    
+    public InstallManifest(String buildName, String sourceUrl, long installed, InstallManifestEntry[] entries) {
+        this.buildName = buildName;
+        this.sourceUrl = sourceUrl;
+        this.installed = installed;
+        this.entries = entries;
+    }
+    
+    public static File getManifestFile(File installDirectory) {
+        return new File(installDirectory, MANIFEST_FILE);
+    }
+    
+    public String getBuildName() {
+        return buildName;
+    }
+    
+    public String getSourceUrl() {
+        return sourceUrl;
+    }
+    
+    public long getInstalled() {
+        return installed;
+    }
+    
+    public InstallManifestEntry[] getEntries() {
+        return entries;
+    }
+    
+    public long getTotalSize() {
+        long totalSize = 0;
+        for (InstallManifestEntry entry : entries) {
+            totalSize += entry.getSize();
+        }
+        return totalSize;
+    }
+
+}
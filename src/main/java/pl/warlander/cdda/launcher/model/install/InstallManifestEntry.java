@@ -0,0 +1,27 @@
+package pl.warlander.cdda.launcher.model.install;
+
+public class InstallManifestEntry {
+    
+    private final String path;
+    private final long size;
+    private final byte[] hash;
+    
+    public InstallManifestEntry(String path, long size, byte[] hash) {
+        this.path = path;
+        this.size = size;
+        this.hash = hash;
+    }
+    
+    public String getPath() {
+        return path;
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public byte[] getHash() {
+        return hash;
+    }
+
+}
@@ -0,0 +1,115 @@
+package pl.warlander.cdda.launcher.model.install;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class InstallManifestFormat {
+    
+    private static final Logger logger = LoggerFactory.getLogger(InstallManifestFormat.class);
+    
+    private static final int MAGIC = 0x4343494D; // "CCIM"
+    private static final int VERSION = 1;
+    private static final int HASH_LENGTH = 32;
+    private static final int MAX_SHARED_PREFIX = 0xFFFF;
+    
+    private InstallManifestFormat() {
+    
+    }
+    
+    // layout: header, then entries sorted by path, each storing only the part of its path that differs from the previous one
+    public static void write(InstallManifest manifest, File file) throws IOException {
+        InstallManifestEntry[] entries = manifest.getEntries().clone();
+        Arrays.sort(entries, Comparator.comparing(InstallManifestEntry::getPath));
+        
+        File temporaryFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile.toPath())))) {
+            output.writeInt(MAGIC);
+            output.writeByte(VERSION);
+            output.writeUTF(manifest.getBuildName());
+            output.writeUTF(manifest.getSourceUrl() != null ? manifest.getSourceUrl() : "");
+            output.writeLong(manifest.getInstalled());
+            output.writeInt(entries.length);
+            
+            String previousPath = "";
+            for (InstallManifestEntry entry : entries) {
+                String path = entry.getPath();
+                int sharedPrefix = Math.min(sharedPrefixLength(previousPath, path), MAX_SHARED_PREFIX);
+                output.writeShort(sharedPrefix);
+                output.writeUTF(path.substring(sharedPrefix));
+                output.writeLong(entry.getSize());
+                output.write(entry.getHash());
+                previousPath = path;
+            }
+        }
+        Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    public static InstallManifest read(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (input.readInt() != MAGIC) {
+                throw new IOException("Not an install manifest: " + file);
+            }
+            int version = input.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported install manifest version " + version);
+            }
+            
+            String buildName = input.readUTF();
+            String sourceUrl = input.readUTF();
+            long installed = input.readLong();
+            int count = input.readInt();
+            if (count < 0) {
+                throw new IOException("Corrupted install manifest: " + file);
+            }
+            
+            InstallManifestEntry[] entries = new InstallManifestEntry[count];
+            String previousPath = "";
+            for (int i = 0; i < count; i++) {
+                int sharedPrefix = input.readUnsignedShort();
+                if (sharedPrefix > previousPath.length()) {
+                    throw new IOException("Corrupted install manifest: " + file);
+                }
+                String path = previousPath.substring(0, sharedPrefix) + input.readUTF();
+                long size = input.readLong();
+                byte[] hash = new byte[HASH_LENGTH];
+                input.readFully(hash);
+                entries[i] = new InstallManifestEntry(path, size, hash);
+                previousPath = path;
+            }
+            return new InstallManifest(buildName, sourceUrl.isEmpty() ? null : sourceUrl, installed, entries);
+        }
+    }
+    
+    public static InstallManifest tryRead(File installDirectory) {
+        File file = InstallManifest.getManifestFile(installDirectory);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return read(file);
+        } catch (IOException ex) {
+            logger.error("Unable to read install manifest of " + installDirectory.getName(), ex);
+            return null;
+        }
+    }
+    
+    private static int sharedPrefixLength(String first, String second) {
+        int length = Math.min(first.length(), second.length());
+        int i = 0;
+        while (i < length && first.charAt(i) == second.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+}
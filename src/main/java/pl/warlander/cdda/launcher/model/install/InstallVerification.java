@@ -0,0 +1,61 @@
+package pl.warlander.cdda.launcher.model.install;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class InstallVerification {
+    
+    private static final double BYTES_IN_MEGABYTE = 1024 * 1024;
+    
+    private final long files;
+    private final long bytes;
+    private final long durationMillis;
+    private final List<InstallManifestEntry> missingEntries;
+    private final List<InstallManifestEntry> corruptedEntries;
+    
+    public InstallVerification(long files, long bytes, long durationMillis, List<InstallManifestEntry> missingEntries, List<InstallManifestEntry> corruptedEntries) {
+        this.files = files;
+        this.bytes = bytes;
+        this.durationMillis = durationMillis;
+        this.missingEntries = missingEntries;
+        this.corruptedEntries = corruptedEntries;
+    }
+    
+    public boolean isIntact() {
+        return missingEntries.isEmpty() && corruptedEntries.isEmpty();
+    }
+    
+    public List<InstallManifestEntry> getMissingEntries() {
+        return missingEntries;
+    }
+    
+    public List<InstallManifestEntry> getCorruptedEntries() {
+        return corruptedEntries;
+    }
+    
+    public List<InstallManifestEntry> getDamagedEntries() {
+        List<InstallManifestEntry> damagedEntries = new ArrayList(missingEntries);
+        damagedEntries.addAll(corruptedEntries);
+        return damagedEntries;
+    }
+    
+    public long getFiles() {
+        return files;
+    }
+    
+    public long getBytes() {
+        return bytes;
+    }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    public String toString() {
+        double durationSeconds = Math.max(durationMillis, 1) / 1000d;
+        return String.format("%d files, %.2f MB in %.2f s - %.2f MB/s, %d missing, %d corrupted",
+                files, bytes / BYTES_IN_MEGABYTE, durationSeconds, bytes / BYTES_IN_MEGABYTE / durationSeconds,
+                missingEntries.size(), corruptedEntries.size());
+    }
+
+}
@@ -0,0 +1,100 @@
+package pl.warlander.cdda.launcher.model.install;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import pl.warlander.cdda.launcher.utils.HashUtils;
+
+public class InstallVerifier {
+    
+    private static final int BUFFER_SIZE = 256 * 1024;
+    
+    // files are read rather than mapped, a mapping would keep them locked on Windows until it is collected
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(HashUtils::createSha256);
+    
+    private final int threads;
+    
+    public InstallVerifier(int threads) {
+        this.threads = Math.max(threads, 1);
+    }
+    
+    public InstallVerification verify(File installDirectory, InstallManifest manifest) throws IOException {
+        long startTime = System.currentTimeMillis();
+        Path root = installDirectory.toPath();
+        List<InstallManifestEntry> missingEntries = Collections.synchronizedList(new ArrayList());
+        List<InstallManifestEntry> corruptedEntries = Collections.synchronizedList(new ArrayList());
+        AtomicLong verifiedBytes = new AtomicLong();
+        
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayList<Future<?>> results = new ArrayList();
+            for (InstallManifestEntry entry : manifest.getEntries()) {
+                results.add(workers.submit(() -> {
+                    Path file = root.resolve(entry.getPath());
+                    long size;
+                    try {
+                        size = Files.size(file);
+                    } catch (NoSuchFileException ex) {
+                        missingEntries.add(entry);
+                        return null;
+                    }
+                    // size mismatch is enough, no need to read the file
+                    if (size != entry.getSize() || !Arrays.equals(hash(file), entry.getHash())) {
+                        corruptedEntries.add(entry);
+                    }
+                    verifiedBytes.addAndGet(size);
+                    return null;
+                }));
+            }
+            
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Verification interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new IOException("Unable to verify installed file", ex.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+        
+        return new InstallVerification(manifest.getEntries().length, verifiedBytes.get(), System.currentTimeMillis() - startTime,
+                new ArrayList(missingEntries), new ArrayList(corruptedEntries));
+    }
+    
+    private byte[] hash(Path file) throws IOException {
+        MessageDigest digest = DIGESTS.get();
+        digest.reset();
+        ByteBuffer buffer = BUFFERS.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.digest();
+    }
+
+}
@@ -0,0 +1,56 @@
+package pl.warlander.cdda.launcher.model.install;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import pl.warlander.cdda.launcher.model.extraction.EntrySource;
+import pl.warlander.cdda.launcher.model.extraction.ExtractionTarget;
+
+public class RepairExtractionTarget extends ExtractionTarget {
+    
+    private final Set<String> repairedPaths;
+    
+    public RepairExtractionTarget(File root, List<InstallManifestEntry> damagedEntries) {
+        super(root);
+        this.repairedPaths = new HashSet();
+        for (InstallManifestEntry entry : damagedEntries) {
+            repairedPaths.add(entry.getPath());
+        }
+    }
+    
+    // entries outside of the damaged set are skipped without reading their data
+    public void writeFile(Path file, InputStream input, long lastModified) throws IOException {
+        if (repairedPaths.contains(getRelativePath(file))) {
+            deleteDamagedFile(file);
+            super.writeFile(file, input, lastModified);
+        }
+    }
+    
+    public void writeFile(Path file, EntrySource source, long size, long lastModified) throws IOException {
+        if (repairedPaths.contains(getRelativePath(file))) {
+            super.writeFile(file, source, size, lastModified);
+        }
+    }
+    
+    public void writeFile(Path file, byte[] data, int length, long lastModified) throws IOException {
+        if (repairedPaths.contains(getRelativePath(file))) {
+            deleteDamagedFile(file);
+            super.writeFile(file, data, length, lastModified);
+        }
+    }
+    
+    private void deleteDamagedFile(Path file) throws IOException {
+        // files may be hard links into the build store, a fresh file keeps the repair from writing through them
+        Files.deleteIfExists(file);
+    }
+    
+    public void reset() throws IOException {
+        throw new IOException("Repair can't be restarted without deleting the install");
+    }
+
+}
@@ -0,0 +1,31 @@
+package pl.warlander.cdda.launcher.model.store;
+
+import java.nio.file.attribute.BasicFileAttributes;
+
+class BlobState {
+    
+    private final long size;
+    private final long lastModified;
+    
+    BlobState(long size, long lastModified) {
+        this.size = size;
+        this.lastModified = lastModified;
+    }
+    
+    BlobState(BasicFileAttributes attributes) {
+        this(attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+    
+    boolean matches(BasicFileAttributes attributes) {
+        return size == attributes.size() && lastModified == attributes.lastModifiedTime().toMillis();
+    }
+    
+    long getSize() {
+        return size;
+    }
+    
+    long getLastModified() {
+        return lastModified;
+    }
+
+}
@@ -0,0 +1,33 @@
+package pl.warlander.cdda.launcher.model.store;
+
+public class BuildManifest {
+    
+    private final String buildName;
+    private final long created;
+    private final BuildManifestEntry[] entries;
+    
+    private BuildManifest() {
+        buildName = null;
+        created = 0;
+        entries = null;
+    }
+    
+    public BuildManifest(String buildName, long created, BuildManifestEntry[] entries) {
+        this.buildName = buildName;
+        this.created = created;
+        this.entries = entries;
+    }
+    
+    public String getBuildName() {
+        return buildName;
+    }
+    
+    public long getCreated() {
+        return created;
+    }
+    
+    public BuildManifestEntry[] getEntries() {
+        return entries;
+    }
+
+}
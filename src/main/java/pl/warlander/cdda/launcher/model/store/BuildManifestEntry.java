@@ -0,0 +1,27 @@
+package pl.warlander.cdda.launcher.model.store;
+
+public class BuildManifestEntry {
+    
+    private final String path;
+    private final long size;
+    private final String hash;
+    
+    public BuildManifestEntry(String path, long size, String hash) {
+        this.path = path;
+        this.size = size;
+        this.hash = hash;
+    }
+    
+    public String getPath() {
+        return path;
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public String getHash() {
+        return hash;
+    }
+
+}
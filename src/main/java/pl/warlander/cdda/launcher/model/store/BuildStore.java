@@ -0,0 +1,295 @@
+package pl.warlander.cdda.launcher.model.store;
+
+import com.google.gson.Gson;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.warlander.cdda.launcher.utils.HashUtils;
+
+public class BuildStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BuildStore.class);
+    
+    private static final String MANIFEST_EXTENSION = ".json";
+    private static final int BLOB_INDEX_MAGIC = 0x43434249; // "CCBI"
+    private static final int BLOB_INDEX_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final File blobsDirectory;
+    private final File manifestsDirectory;
+    private final File temporaryDirectory;
+    private final File blobIndexFile;
+    
+    // size and modification time of every blob at the moment its content was last known to match its hash
+    private final Map<String, BlobState> blobStates;
+    private boolean blobStatesLoaded;
+    
+    public BuildStore(File storeDirectory) {
+        blobsDirectory = new File(storeDirectory, "blobs");
+        manifestsDirectory = new File(storeDirectory, "manifests");
+        temporaryDirectory = new File(storeDirectory, "tmp");
+        blobIndexFile = new File(storeDirectory, "blobs.index");
+        blobStates = new ConcurrentHashMap();
+    }
+    
+    public void initialize() throws IOException {
+        Files.createDirectories(blobsDirectory.toPath());
+        Files.createDirectories(manifestsDirectory.toPath());
+        // leftovers of interrupted installs
+        FileUtils.deleteDirectory(temporaryDirectory);
+        Files.createDirectories(temporaryDirectory.toPath());
+        if (!blobStatesLoaded) {
+            loadBlobStates();
+            blobStatesLoaded = true;
+        }
+    }
+    
+    // installs are hard links to blobs, a file written in place inside an install changes the blob with it
+    public boolean hasBlob(String hash) {
+        Path blob = getBlob(hash);
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(blob, BasicFileAttributes.class);
+        } catch (IOException ex) {
+            return false;
+        }
+        
+        BlobState state = blobStates.get(hash);
+        if (state != null && state.matches(attributes)) {
+            return true;
+        }
+        
+        try {
+            if (hash.equals(hash(blob))) {
+                blobStates.put(hash, new BlobState(attributes));
+                return true;
+            }
+            logger.warn("Blob " + hash + " no longer matches its hash, replacing it");
+            blobStates.remove(hash);
+            Files.deleteIfExists(blob);
+        } catch (IOException ex) {
+            logger.error("Unable to verify blob " + hash, ex);
+        }
+        return false;
+    }
+    
+    private String hash(Path file) throws IOException {
+        MessageDigest digest = HashUtils.createSha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream input = Files.newInputStream(file)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HashUtils.toHex(digest.digest());
+    }
+    
+    public Path getBlob(String hash) {
+        return blobsDirectory.toPath().resolve(hash.substring(0, 2)).resolve(hash);
+    }
+    
+    public void writeBlob(String hash, byte[] data, int length, long lastModified) throws IOException {
+        Path temporaryFile = createTemporaryFile();
+        try (OutputStream output = Files.newOutputStream(temporaryFile)) {
+            output.write(data, 0, length);
+        }
+        addBlob(temporaryFile, hash, lastModified);
+    }
+    
+    public Path createTemporaryFile() throws IOException {
+        // not using Files.createTempFile, its owner-only permissions would end up on installed files
+        return Files.createFile(temporaryDirectory.toPath().resolve(UUID.randomUUID().toString()));
+    }
+    
+    public boolean addBlob(Path temporaryFile, String hash, long lastModified) throws IOException {
+        Path blob = getBlob(hash);
+        if (hasBlob(hash)) {
+            Files.delete(temporaryFile);
+            return false;
+        }
+        
+        if (lastModified > 0) {
+            Files.setLastModifiedTime(temporaryFile, FileTime.fromMillis(lastModified));
+        }
+        Files.createDirectories(blob.getParent());
+        try {
+            Files.move(temporaryFile, blob, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException ex) {
+            // same content was stored concurrently by another writer
+            Files.delete(temporaryFile);
+            return false;
+        }
+        blobStates.put(hash, new BlobState(Files.readAttributes(blob, BasicFileAttributes.class)));
+        return true;
+    }
+    
+    // damage found in an install may have reached the store through a hard link, the repaired file replaces it there
+    public boolean repairBlob(String hash, Path repairedFile) throws IOException {
+        if (!Files.exists(getBlob(hash)) || hasBlob(hash)) {
+            return false;
+        }
+        
+        Path temporaryFile = createTemporaryFile();
+        Files.copy(repairedFile, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+        return addBlob(temporaryFile, hash, Files.getLastModifiedTime(repairedFile).toMillis());
+    }
+    
+    private void loadBlobStates() {
+        blobStates.clear();
+        if (!blobIndexFile.isFile()) {
+            return;
+        }
+        
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(blobIndexFile.toPath())))) {
+            if (input.readInt() != BLOB_INDEX_MAGIC || input.readUnsignedByte() != BLOB_INDEX_VERSION) {
+                throw new IOException("Unsupported blob index format");
+            }
+            int count = input.readInt();
+            byte[] hash = new byte[32];
+            for (int i = 0; i < count; i++) {
+                input.readFully(hash);
+                blobStates.put(HashUtils.toHex(hash), new BlobState(input.readLong(), input.readLong()));
+            }
+        } catch (IOException ex) {
+            // every blob is hashed again before its next use
+            logger.error("Unable to read build store blob index", ex);
+            blobStates.clear();
+        }
+    }
+    
+    public void saveBlobStates() throws IOException {
+        File temporaryFile = new File(blobIndexFile.getPath() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile.toPath())))) {
+            Map<String, BlobState> states = new HashMap(blobStates);
+            output.writeInt(BLOB_INDEX_MAGIC);
+            output.writeByte(BLOB_INDEX_VERSION);
+            output.writeInt(states.size());
+            for (Map.Entry<String, BlobState> entry : states.entrySet()) {
+                output.write(HashUtils.fromHex(entry.getKey()));
+                output.writeLong(entry.getValue().getSize());
+                output.writeLong(entry.getValue().getLastModified());
+            }
+        }
+        Files.move(temporaryFile.toPath(), blobIndexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    public void installBlob(String hash, Path target) throws IOException {
+        Path blob = getBlob(hash);
+        try {
+            createLink(target, blob);
+        } catch (IOException | UnsupportedOperationException ex) {
+            // file system without hard links, fall back to a full copy
+            Files.copy(blob, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+    
+    private void createLink(Path link, Path existing) throws IOException {
+        try {
+            Files.createLink(link, existing);
+        } catch (FileAlreadyExistsException ex) {
+            Files.delete(link);
+            Files.createLink(link, existing);
+        }
+    }
+    
+    public void saveManifest(BuildManifest manifest) throws IOException {
+        Files.createDirectories(manifestsDirectory.toPath());
+        File manifestFile = new File(manifestsDirectory, manifest.getBuildName() + MANIFEST_EXTENSION);
+        try (FileWriter writer = new FileWriter(manifestFile)) {
+            new Gson().toJson(manifest, writer);
+        }
+    }
+    
+    public BuildManifest loadManifest(String buildName) {
+        File manifestFile = new File(manifestsDirectory, buildName + MANIFEST_EXTENSION);
+        if (!manifestFile.exists()) {
+            return null;
+        }
+        return readManifest(manifestFile);
+    }
+    
+    public BuildManifest[] findManifests() {
+        File[] files = manifestsDirectory.listFiles((dir, name) -> name.endsWith(MANIFEST_EXTENSION));
+        if (files == null) {
+            return new BuildManifest[0];
+        }
+        
+        ArrayList<BuildManifest> manifests = new ArrayList();
+        for (File file : files) {
+            BuildManifest manifest = readManifest(file);
+            if (manifest != null) {
+                manifests.add(manifest);
+            }
+        }
+        manifests.sort(Comparator.comparingLong(BuildManifest::getCreated).reversed());
+        return manifests.toArray(BuildManifest[]::new);
+    }
+    
+    private BuildManifest readManifest(File manifestFile) {
+        try (FileReader reader = new FileReader(manifestFile)) {
+            return new Gson().fromJson(reader, BuildManifest.class);
+        } catch (IOException ex) {
+            logger.error("Unable to read build manifest " + manifestFile.getName(), ex);
+            return null;
+        }
+    }
+    
+    public void collectGarbage(int keptBuilds) {
+        BuildManifest[] manifests = findManifests();
+        Set<String> referencedBlobs = new HashSet();
+        for (int i = 0; i < manifests.length; i++) {
+            if (i >= keptBuilds) {
+                logger.info("Removing " + manifests[i].getBuildName() + " from build store");
+                new File(manifestsDirectory, manifests[i].getBuildName() + MANIFEST_EXTENSION).delete();
+                continue;
+            }
+            Arrays.stream(manifests[i].getEntries()).map(BuildManifestEntry::getHash).forEach(referencedBlobs::add);
+        }
+        
+        int deletedBlobs = 0;
+        try (Stream<Path> blobs = Files.walk(blobsDirectory.toPath())) {
+            for (Path blob : (Iterable<Path>) blobs.filter(Files::isRegularFile)::iterator) {
+                String hash = blob.getFileName().toString();
+                if (!referencedBlobs.contains(hash)) {
+                    // installs keep their own hard links, so only the store copy goes away
+                    Files.delete(blob);
+                    blobStates.remove(hash);
+                    deletedBlobs++;
+                }
+            }
+            saveBlobStates();
+        } catch (IOException ex) {
+            logger.error("Unable to clean up build store", ex);
+        }
+        logger.info("Build store cleanup removed " + deletedBlobs + " unreferenced blobs");
+    }
+
+}
@@ -0,0 +1,152 @@
+package pl.warlander.cdda.launcher.model.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import pl.warlander.cdda.launcher.model.extraction.EntrySource;
+import pl.warlander.cdda.launcher.model.extraction.ExtractionStatistics;
+import pl.warlander.cdda.launcher.model.extraction.ExtractionTarget;
+import pl.warlander.cdda.launcher.utils.HashUtils;
+
+public class StoreExtractionTarget extends ExtractionTarget {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StoreExtractionTarget.class);
+    
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final int BUFFERED_ENTRY_LIMIT = 4 * 1024 * 1024;
+    
+    private final BuildStore store;
+    private final String buildName;
+    
+    private final Queue<BuildManifestEntry> entries;
+    private final AtomicLong writtenBlobs;
+    private final AtomicLong writtenBytes;
+    
+    public StoreExtractionTarget(File root, BuildStore store, String buildName) throws IOException {
+        super(root);
+        this.store = store;
+        this.buildName = buildName;
+        this.entries = new ConcurrentLinkedQueue();
+        this.writtenBlobs = new AtomicLong();
+        this.writtenBytes = new AtomicLong();
+        store.initialize();
+    }
+    
+    public void writeFile(Path file, EntrySource source, long size, long lastModified) throws IOException {
+        if (size >= 0 && size <= BUFFERED_ENTRY_LIMIT) {
+            byte[] data = new byte[(int) size];
+            try (InputStream input = source.open()) {
+                IOUtils.readFully(input, data);
+            }
+            writeFile(file, data, data.length, lastModified);
+            return;
+        }
+        
+        if (size > BUFFERED_ENTRY_LIMIT) {
+            // large entries are hashed in a first pass, unchanged ones are linked without writing anything
+            MessageDigest digest = HashUtils.createSha256();
+            long hashedSize;
+            try (InputStream input = new DigestInputStream(source.open(), digest)) {
+                hashedSize = copy(input, NullOutputStream.NULL_OUTPUT_STREAM);
+            }
+            byte[] hashBytes = digest.digest();
+            String hash = HashUtils.toHex(hashBytes);
+            if (store.hasBlob(hash)) {
+                installFile(file, hashedSize, hash, hashBytes);
+                return;
+            }
+        }
+        
+        super.writeFile(file, source, size, lastModified);
+    }
+    
+    public void writeFile(Path file, InputStream input, long lastModified) throws IOException {
+        // entries are hashed before anything is written, so files already in the store never touch the disk
+        byte[] data = new byte[INITIAL_BUFFER_SIZE];
+        int length = 0;
+        while (true) {
+            if (length == data.length) {
+                if (length == BUFFERED_ENTRY_LIMIT) {
+                    writeLargeFile(file, data, input, lastModified);
+                    return;
+                }
+                data = Arrays.copyOf(data, Math.min(length * 2, BUFFERED_ENTRY_LIMIT));
+            }
+            int read = input.read(data, length, data.length - length);
+            if (read == -1) {
+                break;
+            }
+            length += read;
+        }
+        writeFile(file, data, length, lastModified);
+    }
+    
+    // sequential archives can't be read twice, entries past the buffer limit are hashed on their way to the store
+    private void writeLargeFile(Path file, byte[] head, InputStream input, long lastModified) throws IOException {
+        Path temporaryFile = store.createTemporaryFile();
+        MessageDigest digest = HashUtils.createSha256();
+        long size;
+        try (OutputStream output = new DigestOutputStream(Files.newOutputStream(temporaryFile), digest)) {
+            output.write(head);
+            size = head.length + copy(input, output);
+        }
+        byte[] hashBytes = digest.digest();
+        String hash = HashUtils.toHex(hashBytes);
+        if (store.addBlob(temporaryFile, hash, lastModified)) {
+            recordBlob(size);
+        }
+        installFile(file, size, hash, hashBytes);
+    }
+    
+    public void writeFile(Path file, byte[] data, int length, long lastModified) throws IOException {
+        byte[] hashBytes = HashUtils.sha256Digest(data, length);
+        String hash = HashUtils.toHex(hashBytes);
+        if (!store.hasBlob(hash)) {
+            store.writeBlob(hash, data, length, lastModified);
+            recordBlob(length);
+        }
+        installFile(file, length, hash, hashBytes);
+    }
+    
+    private void recordBlob(long size) {
+        writtenBlobs.incrementAndGet();
+        writtenBytes.addAndGet(size);
+    }
+    
+    private void installFile(Path file, long size, String hash, byte[] hashBytes) throws IOException {
+        store.installBlob(hash, file);
+        entries.add(new BuildManifestEntry(getRelativePath(file), size, hash));
+        recordFile(file, size, hashBytes);
+    }
+    
+    public void reset() throws IOException {
+        super.reset();
+        entries.clear();
+        writtenBlobs.set(0);
+        writtenBytes.set(0);
+    }
+    
+    public ExtractionStatistics finish() throws IOException {
+        ExtractionStatistics statistics = super.finish();
+        store.saveManifest(new BuildManifest(buildName, System.currentTimeMillis(), entries.toArray(BuildManifestEntry[]::new)));
+        store.saveBlobStates();
+        logger.info("Build store received " + writtenBlobs.get() + " new files (" + writtenBytes.get() / 1024 + " KB), "
+                + (statistics.getFiles() - writtenBlobs.get()) + " files linked from previous builds");
+        return statistics;
+    }
+
+}
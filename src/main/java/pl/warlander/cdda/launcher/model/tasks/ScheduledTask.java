@@ -0,0 +1,127 @@
+package pl.warlander.cdda.launcher.model.tasks;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+public class ScheduledTask<T> implements Runnable, Comparable<ScheduledTask<?>> {
+    
+    private final String name;
+    private final TaskPool pool;
+    private final TaskPriority priority;
+    private final Callable<T> callable;
+    private final long sequence;
+    private final CompletableFuture<T> completion;
+    
+    private final long submitTime;
+    private volatile long queueTime;
+    private volatile long startTime;
+    private volatile long endTime;
+    
+    private Thread runner;
+    
+    ScheduledTask(String name, TaskPool pool, TaskPriority priority, Callable<T> callable, long sequence) {
+        this.name = name;
+        this.pool = pool;
+        this.priority = priority;
+        this.callable = callable;
+        this.sequence = sequence;
+        this.completion = new CompletableFuture();
+        this.submitTime = System.currentTimeMillis();
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public TaskPool getPool() {
+        return pool;
+    }
+    
+    public TaskPriority getPriority() {
+        return priority;
+    }
+    
+    public CompletableFuture<T> getCompletion() {
+        return completion;
+    }
+    
+    public boolean isDone() {
+        return completion.isDone();
+    }
+    
+    public boolean isCancelled() {
+        return completion.isCancelled();
+    }
+    
+    public long getWaitMillis() {
+        // time spent waiting for dependencies
+        return queueTime > 0 ? queueTime - submitTime : 0;
+    }
+    
+    public long getQueueMillis() {
+        return startTime > 0 ? startTime - queueTime : 0;
+    }
+    
+    public long getRunMillis() {
+        return endTime > 0 ? endTime - startTime : 0;
+    }
+    
+    public void cancel() {
+        if (completion.cancel(false)) {
+            synchronized (this) {
+                if (runner != null) {
+                    runner.interrupt();
+                }
+            }
+        }
+    }
+    
+    void queued() {
+        queueTime = System.currentTimeMillis();
+    }
+    
+    void fail(Throwable ex) {
+        completion.completeExceptionally(ex);
+    }
+    
+    public void run() {
+        synchronized (this) {
+            if (completion.isDone()) {
+                // cancelled while queued
+                return;
+            }
+            runner = Thread.currentThread();
+        }
+        
+        startTime = System.currentTimeMillis();
+        T result = null;
+        Throwable failure = null;
+        try {
+            result = callable.call();
+        } catch (Throwable ex) {
+            failure = ex;
+        }
+        endTime = System.currentTimeMillis();
+        synchronized (this) {
+            runner = null;
+            // interrupt meant for this task must not leak into the next one on this thread
+            Thread.interrupted();
+        }
+        
+        if (failure != null) {
+            completion.completeExceptionally(failure);
+        } else {
+            completion.complete(result);
+        }
+    }
+    
+    public int compareTo(ScheduledTask<?> other) {
+        int priorityOrder = other.priority.compareTo(priority);
+        return priorityOrder != 0 ? priorityOrder : Long.compare(sequence, other.sequence);
+    }
+    
+    public String toString() {
+        return name + " (" + pool + ", " + priority + ")";
+    }
+
+}
@@ -0,0 +1,7 @@
+package pl.warlander.cdda.launcher.model.tasks;
+
+public enum TaskPool {
+    
+    NETWORK, DISK, CPU
+
+}
@@ -0,0 +1,8 @@
+package pl.warlander.cdda.launcher.model.tasks;
+
+public enum TaskPriority {
+    
+    // declared from lowest to highest
+    BACKGROUND, NORMAL, USER
+
+}
@@ -0,0 +1,113 @@
+package pl.warlander.cdda.launcher.model.tasks;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class TaskScheduler {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TaskScheduler.class);
+    
+    public static final int DEFAULT_NETWORK_THREADS = 4;
+    // game folders are only ever changed by one task at a time
+    public static final int DEFAULT_DISK_THREADS = 1;
+    public static final int DEFAULT_CPU_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    
+    private static final int FINISHED_TASKS_KEPT = 50;
+    
+    private final Map<TaskPool, ThreadPoolExecutor> executors;
+    private final AtomicLong sequence;
+    private final Deque<ScheduledTask<?>> finishedTasks;
+    
+    public TaskScheduler() {
+        this(DEFAULT_NETWORK_THREADS, DEFAULT_DISK_THREADS, DEFAULT_CPU_THREADS);
+    }
+    
+    public TaskScheduler(int networkThreads, int diskThreads, int cpuThreads) {
+        executors = new EnumMap(TaskPool.class);
+        executors.put(TaskPool.NETWORK, createExecutor(TaskPool.NETWORK, networkThreads));
+        executors.put(TaskPool.DISK, createExecutor(TaskPool.DISK, diskThreads));
+        executors.put(TaskPool.CPU, createExecutor(TaskPool.CPU, cpuThreads));
+        sequence = new AtomicLong();
+        finishedTasks = new ArrayDeque();
+    }
+    
+    private ThreadPoolExecutor createExecutor(TaskPool pool, int threads) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new PriorityBlockingQueue(), (runnable) -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName(pool.name().toLowerCase() + "-" + threadNumber.incrementAndGet());
+            return thread;
+        });
+    }
+    
+    public ScheduledTask<Void> submit(String name, TaskPool pool, TaskPriority priority, Runnable runnable, CompletableFuture<?>... dependencies) {
+        return submitCallable(name, pool, priority, Executors.callable(runnable, null), dependencies);
+    }
+    
+    public <T> ScheduledTask<T> submitCallable(String name, TaskPool pool, TaskPriority priority, Callable<T> callable, CompletableFuture<?>... dependencies) {
+        ScheduledTask<T> task = new ScheduledTask(name, pool, priority, callable, sequence.incrementAndGet());
+        task.getCompletion().whenComplete((result, ex) -> finished(task));
+        
+        if (dependencies.length == 0) {
+            enqueue(task);
+            return task;
+        }
+        
+        // queued only once everything it depends on is done, failures are passed on without running it
+        CompletableFuture.allOf(dependencies).whenComplete((result, ex) -> {
+            if (ex != null) {
+                task.fail(ex);
+            } else {
+                enqueue(task);
+            }
+        });
+        return task;
+    }
+    
+    private void enqueue(ScheduledTask<?> task) {
+        task.queued();
+        executors.get(task.getPool()).execute(task);
+    }
+    
+    private void finished(ScheduledTask<?> task) {
+        executors.get(task.getPool()).remove(task);
+        synchronized (finishedTasks) {
+            finishedTasks.addFirst(task);
+            if (finishedTasks.size() > FINISHED_TASKS_KEPT) {
+                finishedTasks.removeLast();
+            }
+        }
+        
+        if (task.isCancelled()) {
+            logger.info("Task " + task + " cancelled");
+        } else if (task.getRunMillis() > 0 || task.getQueueMillis() > 0) {
+            logger.info("Task " + task + " finished: waited " + task.getWaitMillis() + " ms, queued " + task.getQueueMillis()
+                    + " ms, ran " + task.getRunMillis() + " ms");
+        }
+    }
+    
+    public List<ScheduledTask<?>> getFinishedTasks() {
+        synchronized (finishedTasks) {
+            return new ArrayList(finishedTasks);
+        }
+    }
+    
+    public int getQueuedTasks(TaskPool pool) {
+        return executors.get(pool).getQueue().size();
+    }
+
+}